@@ -0,0 +1,42 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ChartData;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing an AI response into a columnar table: tokenizing, dictionary encoding and type inference in one pass.
+ * This is the body of OpenWebUIAdapter.internalExtractDataSet, minus the adapter around it.
+ * legacyExtractDataSet runs the regex and split parser it replaced on the same response, as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvExtractionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    String response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        response = CsvFixtures.response(rows);
+    }
+
+    @Benchmark
+    public ColumnarTable extractDataSet() {
+        return CsvFixtures.table(response);
+    }
+
+    @Benchmark
+    public List<ChartData> legacyExtractDataSet() {
+        return LegacyCsvExtraction.extract(response);
+    }
+}
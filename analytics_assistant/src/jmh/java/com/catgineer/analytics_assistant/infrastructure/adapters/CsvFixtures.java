@@ -0,0 +1,52 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic AI responses for the benchmarks: a short preamble, then a fenced CSV block with a date,
+ * a text column that is sometimes quoted with embedded commas, an integer, a decimal and a boolean.
+ * The same row count always yields the same response; 1M rows come to roughly 50 MB.
+ */
+final class CsvFixtures {
+
+    private static final String[] REGIONS = {"north", "south", "east", "west", "\"central, inner\"", "\"central, outer\""};
+
+    private CsvFixtures() {
+        // Private constructor to prevent instantiation
+    }
+
+    static String response(int rows) {
+        SplittableRandom random = new SplittableRandom(rows);
+        StringBuilder out = new StringBuilder(rows * 48 + 128);
+        out.append("Here is the data you asked for:\n\n```csv\n");
+        out.append("Report Date,Region,Commit Count,Avg Review Hours,Merged\n");
+
+        for (int i = 0; i < rows; i++) {
+            out.append("2026-")
+                    .append(String.format("%02d-%02d", 1 + (i / 28) % 12, 1 + i % 28)).append(',')
+                    .append(REGIONS[random.nextInt(REGIONS.length)]).append(',')
+                    .append(random.nextInt(10_000)).append(',')
+                    .append(random.nextInt(500)).append('.').append(random.nextInt(100)).append(',')
+                    .append(random.nextBoolean()).append('\n');
+        }
+
+        out.append("```\n\nLet me know if you need another breakdown.");
+        return out.toString();
+    }
+
+    /**
+     * The response parsed the way OpenWebUIAdapter.internalExtractDataSet parses it.
+     */
+    static ColumnarTable table(String response) {
+        int start = response.indexOf('\n', response.indexOf("```")) + 1;
+        int end = response.indexOf("```", start);
+
+        CsvColumnCollector collector = new CsvColumnCollector();
+        CsvTokenizer tokenizer = new CsvTokenizer(collector);
+        tokenizer.feed(response, start, end);
+        tokenizer.finish();
+        return collector.toTable();
+    }
+}
@@ -0,0 +1,91 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnVector;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What exact decimals cost: the fixture's decimal column as the dictionary-encoded BigDecimal vector the
+ * table keeps, against the same values in a plain double[]. Parsing covers each distinct value once, as
+ * the table builder does; reading covers every row, as the row views and the COPY stream do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DecimalColumnBenchmark {
+
+    private static final int DECIMAL_COLUMN = 3; // Avg Review Hours
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    String[] distinct;
+    ColumnVector.DecimalVector decimals;
+    double[] doubles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ColumnarTable table = CsvFixtures.table(CsvFixtures.response(rows));
+        decimals = (ColumnVector.DecimalVector) table.column(DECIMAL_COLUMN);
+
+        Set<String> seen = new LinkedHashSet<>();
+        doubles = new double[decimals.size()];
+        for (int row = 0; row < decimals.size(); row++) {
+            String text = decimals.text(row);
+            seen.add(text);
+            doubles[row] = Double.parseDouble(text);
+        }
+        distinct = seen.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void parseDecimals(Blackhole blackhole) {
+        for (String text : distinct) {
+            blackhole.consume(new BigDecimal(text));
+        }
+    }
+
+    @Benchmark
+    public void parseDoubles(Blackhole blackhole) {
+        for (String text : distinct) {
+            blackhole.consume(Double.parseDouble(text));
+        }
+    }
+
+    @Benchmark
+    public void readDecimals(Blackhole blackhole) {
+        for (int row = 0; row < decimals.size(); row++) {
+            blackhole.consume(decimals.get(row));
+        }
+    }
+
+    @Benchmark
+    public void readDoubles(Blackhole blackhole) {
+        for (double value : doubles) {
+            blackhole.consume((Object) value);
+        }
+    }
+
+    @Benchmark
+    public void renderDecimals(Blackhole blackhole) {
+        for (int row = 0; row < decimals.size(); row++) {
+            blackhole.consume(decimals.text(row));
+        }
+    }
+
+    @Benchmark
+    public void renderDoubles(Blackhole blackhole) {
+        for (double value : doubles) {
+            blackhole.consume(Double.toString(value));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ChartData;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The regex and String.split parser OpenWebUIAdapter.internalExtractDataSet used before the tokenizer,
+ * kept verbatim as the baseline of CsvExtractionBenchmark. It splits quoted commas like any other comma.
+ */
+final class LegacyCsvExtraction {
+
+    private LegacyCsvExtraction() {
+        // Private constructor to prevent instantiation
+    }
+
+    static List<ChartData> extract(String aiResponse) {
+        // 1. Extract CSV content
+        Pattern pattern = Pattern.compile("(?s)```(?:csv)?\\n(.*?)\\n```");
+        Matcher matcher = pattern.matcher(aiResponse);
+        String csv = matcher.find() ? matcher.group(1).trim() : aiResponse.trim();
+
+        if (csv.isEmpty()) {
+            throw new IllegalStateException("CSV content missing");
+        }
+
+        // 2. Split into lines and filter
+        List<String> lines = Arrays.stream(csv.split("\\n"))
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && line.contains(","))
+                .collect(Collectors.toList());
+
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+
+        // 3. Extract Headers
+        String[] headers = lines.get(0).split(",");
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = headers[i].trim().toLowerCase().replace(" ", "_"); // Sanitize for Postgres
+        }
+
+        // 4. Map Rows to ChartData
+        return lines.stream()
+                .skip(1) // Skip header line
+                .map(line -> {
+                    String[] values = line.split(",");
+                    Map<String, Object> columns = new java.util.LinkedHashMap<>(); // Keeps the CSV column order
+                    Map<String, String> columnTypes = new java.util.HashMap<>();
+
+                    for (int i = 0; i < headers.length; i++) {
+                        String header = headers[i];
+                        String rawValue = (i < values.length) ? values[i].trim() : "";
+
+                        // Populate data and infer type for each column
+                        columns.put(header, rawValue);
+                        columnTypes.put(header, inferPostgresType(rawValue));
+                    }
+
+                    return new ChartData(columns, columnTypes);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static String inferPostgresType(String value) {
+        if (value == null || value.isEmpty()) return "TEXT";
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return "BOOLEAN";
+        if (value.matches("\\d{4}-\\d{2}-\\d{2}")) return "DATE";
+        if (value.matches("\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}.*")) return "TIMESTAMP";
+        if (value.matches("-?\\d+(\\.\\d+)?")) return "NUMERIC";
+        return "TEXT";
+    }
+}
@@ -0,0 +1,52 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The persist side of the hot path: reading the table as rows, as VisualisationService.internalMapToTableRows
+ * hands them out, and rendering them as the COPY stream SupersetAdapter loads, without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TableRowsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    ColumnarTable table;
+    char[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = CsvFixtures.table(CsvFixtures.response(rows));
+        buffer = new char[8192]; // The chunk size the driver's copyIn reads with.
+    }
+
+    @Benchmark
+    public void mapToTableRows(Blackhole blackhole) {
+        for (ColumnarTable.RowView row : table.rows()) {
+            for (int column = 0; column < table.columnCount(); column++) {
+                blackhole.consume(row.get(column));
+            }
+        }
+    }
+
+    @Benchmark
+    public long encodeCopyRows() {
+        long chars = 0;
+        try (CsvRowReader reader = new CsvRowReader(table.rows(), table.columnCount())) {
+            for (int read = reader.read(buffer, 0, buffer.length); read > 0; read = reader.read(buffer, 0, buffer.length)) {
+                chars += read;
+            }
+        }
+        return chars;
+    }
+}
@@ -0,0 +1,43 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type inference over every cell of the fixture, isolated from tokenizing; the successor of inferPostgresType.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ValueTypeScannerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    String[] cells;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ColumnarTable table = CsvFixtures.table(CsvFixtures.response(rows));
+        cells = new String[table.rowCount() * table.columnCount()];
+        int next = 0;
+        for (ColumnarTable.RowView row : table.rows()) {
+            for (int column = 0; column < table.columnCount(); column++) {
+                cells[next++] = row.text(column);
+            }
+        }
+    }
+
+    @Benchmark
+    public void inferTypes(Blackhole blackhole) {
+        for (String cell : cells) {
+            blackhole.consume(ValueTypeScanner.infer(cell));
+        }
+    }
+}
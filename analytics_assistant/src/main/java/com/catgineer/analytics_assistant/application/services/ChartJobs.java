@@ -0,0 +1,172 @@
+package com.catgineer.analytics_assistant.application.services;
+
+import com.catgineer.analytics_assistant.domain.ContentHash;
+import com.catgineer.analytics_assistant.domain.model.ChartJob;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
+import com.catgineer.analytics_assistant.domain.services.ChartResultCache;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartJobStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vavr.API.*;
+import static io.vavr.Patterns.$Failure;
+import static io.vavr.Patterns.$Success;
+
+/**
+ * Runs chart generation as background jobs. Submitting records a queued job and returns at once;
+ * up to maxWorkers jobs run GenerateChartFromPrompt concurrently, and at most maxPending are queued or running.
+ * A submission identical to a queued or running job (same prompt, model, sources and session) joins that job.
+ * Job state lives in the job store, so status reads work from any instance. Jobs are owned by the instance
+ * that runs them; instanceId must stay the same across restarts of an instance (it defaults to the host name),
+ * so that its jobs cut short by a restart are failed without touching those of other instances.
+ */
+public class ChartJobs implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartJobs.class);
+    private static final Duration WATCH_INTERVAL = Duration.ofSeconds(1);
+
+    private record JobRequest(String jobId, String prompt, String modelName, List<String> sourceUrls, String sessionId) {}
+
+    private final GenerateChartFromPrompt generateChartService;
+    private final ChartResultCache chartResultCache;
+    private final ChartJobStore jobStore;
+    private final String instanceId;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger(); // queued or running on this instance
+    private final Sinks.Many<JobRequest> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable workers;
+
+    public ChartJobs(GenerateChartFromPrompt generateChartService, ChartResultCache chartResultCache,
+                     ChartJobStore jobStore, String instanceId, int maxWorkers, int maxPending) {
+        this.generateChartService = generateChartService;
+        this.chartResultCache = chartResultCache;
+        this.jobStore = jobStore;
+        this.instanceId = instanceId;
+        this.maxPending = maxPending;
+
+        Gauge.builder("chart_jobs.pending", pending, AtomicInteger::get).register(Metrics.globalRegistry);
+
+        // Jobs of a previous process cannot resume; failing them also frees their request hash for resubmission.
+        this.workers = jobStore.failUnfinished(instanceId, "Interrupted by a restart")
+                .thenMany(queue.asFlux())
+                .flatMap(this::internalRun, Math.max(1, maxWorkers))
+                .subscribe(
+                        job -> { },
+                        error -> logger.error("Chart job workers stopped: {}", error.getMessage()));
+    }
+
+    private String internalRequestHash(String prompt, String modelName, List<String> sourceUrls, String sessionId) {
+        String resultKey = chartResultCache.keyFor(prompt, modelName, sourceUrls);
+        return ContentHash.sha256(resultKey + "\n" + Objects.requireNonNullElse(sessionId, ""));
+    }
+
+    /**
+     * A place in the queue is reserved before the job is recorded, with one compare-and-set, so concurrent
+     * submissions cannot exceed maxPending. It is given back unless the job is queued: the submission joined
+     * an existing job, recording it failed, or it was cancelled.
+     */
+    public Mono<Try<ChartJob>> submit(String prompt, String modelName, List<String> sourceUrls, String sessionId) {
+        return Mono.defer(() -> {
+            if (pending.getAndUpdate(count -> count < maxPending ? count + 1 : count) >= maxPending) {
+                return Mono.just(Try.<ChartJob>failure(new IllegalStateException("Chart job queue is full (" + maxPending + " pending)")));
+            }
+
+            // Copied before the job is recorded, so nothing can fail between recording it and queueing it.
+            List<String> urls = sourceUrls == null ? List.of() : List.copyOf(sourceUrls);
+            String jobId = UUID.randomUUID().toString();
+            String requestHash = internalRequestHash(prompt, modelName, urls, sessionId);
+            AtomicBoolean queued = new AtomicBoolean();
+
+            return jobStore.createOrFindActive(jobId, requestHash, instanceId, prompt, modelName)
+                    .map(created -> created.andThen(job -> {
+                        if (!job.id().equals(jobId)) return; // Joined an existing job.
+                        queued.set(internalEnqueue(new JobRequest(jobId, prompt, modelName, urls, sessionId)));
+                    }))
+                    .doFinally(signal -> {
+                        if (!queued.get()) pending.decrementAndGet();
+                    });
+        });
+    }
+
+    // Sinks reject concurrent emitters, so submissions from different threads take turns.
+    private synchronized boolean internalEnqueue(JobRequest request) {
+        Sinks.EmitResult result = queue.tryEmitNext(request);
+        if (result.isFailure()) {
+            logger.error("Could not queue chart job {}: {}", request.jobId(), result);
+            jobStore.update(request.jobId(), ChartJob.Status.FAILED, null, null, "Could not be queued").subscribe();
+            return false;
+        }
+        return true;
+    }
+
+    public Mono<Try<Optional<ChartJob>>> find(String jobId) {
+        return jobStore.find(jobId);
+    }
+
+    /**
+     * Emits the job each time its status or stage changes, until it succeeds or fails.
+     */
+    public Flux<Try<ChartJob>> watch(String jobId) {
+        return Flux.interval(Duration.ZERO, WATCH_INTERVAL)
+                .concatMap(tick -> jobStore.find(jobId))
+                .map(found -> found.flatMap(job -> job
+                        .map(Try::success)
+                        .orElseGet(() -> Try.failure(new IllegalArgumentException("Unknown job: " + jobId)))))
+                .distinctUntilChanged(found -> found.map(job -> job.status() + "/" + job.stage()).getOrElse("error"))
+                .takeUntil(found -> found.isFailure() || found.get().status().terminal());
+    }
+
+    /**
+     * Runs one job, recording each Progress stage, then the chart id or the error.
+     */
+    private Mono<Boolean> internalRun(JobRequest request) {
+        String jobId = request.jobId();
+        AtomicBoolean finished = new AtomicBoolean();
+
+        return jobStore.update(jobId, ChartJob.Status.RUNNING, "started", null, null)
+                .thenMany(generateChartService.executeStreaming(request.prompt(), request.modelName(), request.sourceUrls(), request.sessionId()))
+                .concatMap(eventTry -> Match(eventTry).<Mono<Try<Boolean>>>of(
+                        Case($Success($()), event -> switch (event) {
+                            case ChartStreamEvent.Progress progress ->
+                                    jobStore.update(jobId, ChartJob.Status.RUNNING, progress.stage(), null, null);
+                            case ChartStreamEvent.ChartReady chart -> {
+                                finished.set(true);
+                                logger.info("Chart job {} succeeded with chart {}", jobId, chart.chartId());
+                                yield jobStore.update(jobId, ChartJob.Status.SUCCEEDED, "done", chart.chartId(), null);
+                            }
+                            default -> Mono.just(Try.success(true));
+                        }),
+                        Case($Failure($()), ex -> {
+                            finished.set(true);
+                            logger.error("Chart job {} failed: {}", jobId, ex.getMessage());
+                            return jobStore.update(jobId, ChartJob.Status.FAILED, null, null, ex.getMessage());
+                        })
+                ))
+                .then(Mono.defer(() -> finished.get()
+                        ? Mono.just(Try.success(true))
+                        : jobStore.update(jobId, ChartJob.Status.FAILED, null, null, "Generation ended without a chart")))
+                .onErrorResume(ex -> jobStore.update(jobId, ChartJob.Status.FAILED, null, null, ex.getMessage()))
+                .map(recorded -> recorded.getOrElse(false))
+                .doFinally(signal -> pending.decrementAndGet());
+    }
+
+    @Override
+    public void close() {
+        workers.dispose();
+    }
+}
@@ -0,0 +1,116 @@
+package com.catgineer.analytics_assistant.application.services;
+
+import com.catgineer.analytics_assistant.domain.model.BatchChartResult;
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartPrompt;
+import com.catgineer.analytics_assistant.domain.services.AIService;
+import com.catgineer.analytics_assistant.domain.services.ChartResultCache;
+import com.catgineer.analytics_assistant.domain.services.DatasetPool;
+import com.catgineer.analytics_assistant.domain.services.VisualisationService;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static io.vavr.API.*;
+import static io.vavr.Patterns.$Failure;
+import static io.vavr.Patterns.$Success;
+
+/**
+ * Generates the charts of a dashboard in one go. Up to concurrency completions run at once; charts with the
+ * same prompt, model and sources share one completion through the chart result cache. A chart whose
+ * generation fails is reported as soon as it does. The data sets that succeeded are then written in a single
+ * transaction into slots leased together from the pool, and each chart is reported as Superset creates it.
+ */
+public class GenerateChartBatch {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerateChartBatch.class);
+
+    private record Generated(int index, Try<ChartDataSet> dataSet) {}
+
+    private final AIService aiService;
+    private final VisualisationService visualisationService;
+    private final ChartResultCache chartResultCache;
+    private final DatasetPool datasetPool;
+    private final int concurrency;
+    private final int maxCharts;
+
+    public GenerateChartBatch(
+            AIService aiService,
+            VisualisationService visualisationService,
+            ChartResultCache chartResultCache,
+            DatasetPool datasetPool,
+            int concurrency,
+            int maxCharts
+    ) {
+        this.aiService = aiService;
+        this.visualisationService = visualisationService;
+        this.chartResultCache = chartResultCache;
+        this.datasetPool = datasetPool;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxCharts = maxCharts;
+    }
+
+    public int maxCharts() {
+        return maxCharts;
+    }
+
+    private Flux<Generated> internalGenerateAll(List<ChartPrompt> charts) {
+        return Flux.range(0, charts.size())
+                .flatMap(i -> {
+                    ChartPrompt chart = charts.get(i);
+                    return chartResultCache.getOrGenerate(chart.prompt(), chart.modelName(), chart.sourceUrls(),
+                                    () -> aiService.generateChartData(chart.prompt(), chart.modelName()))
+                            .map(dataSet -> new Generated(i, dataSet));
+                }, concurrency);
+    }
+
+    private Flux<BatchChartResult> internalSyncAll(List<Generated> ready, String sessionId) {
+        if (ready.isEmpty()) return Flux.empty();
+        List<ChartDataSet> dataSets = ready.stream().map(generated -> generated.dataSet().get()).toList();
+
+        return datasetPool.withSlots(sessionId, ready.size(), lease -> Match(lease).<Flux<BatchChartResult>>of(
+                Case($Success($()), slots -> visualisationService.syncBatchToVisualisation(dataSets, slots)
+                        .map(synced -> internalResult(ready.get(synced.index()).index(), synced.chartId()))),
+                Case($Failure($()), ex -> {
+                    logger.error("Could not lease {} dataset slots: {}", ready.size(), ex.getMessage());
+                    return Flux.fromIterable(ready)
+                            .map(generated -> internalResult(generated.index(), Try.failure(ex)));
+                })
+        ));
+    }
+
+    private BatchChartResult internalResult(int index, Try<Integer> chartId) {
+        return Match(chartId).<BatchChartResult>of(
+                Case($Success($()), id -> {
+                    logger.info("Batch chart {} created as chart {}", index, id);
+                    return new BatchChartResult(index, chartId);
+                }),
+                Case($Failure($()), ex -> {
+                    logger.error("Batch chart {} failed in visualisation: {}", index, ex.getMessage());
+                    return new BatchChartResult(index, Try.failure(new RuntimeException("Visualisation phase failed", ex)));
+                })
+        );
+    }
+
+    /**
+     * Emits one result per chart, in completion order; each result carries the chart's index in the batch.
+     */
+    public Flux<BatchChartResult> execute(List<ChartPrompt> charts, String sessionId) {
+        logger.info("Executing batch generation of {} charts with concurrency {}", charts.size(), concurrency);
+
+        return internalGenerateAll(charts).publish(generated -> Flux.merge(
+                generated.filter(result -> result.dataSet().isFailure())
+                        .map(result -> {
+                            logger.error("Batch chart {} failed in generation", result.index());
+                            return new BatchChartResult(result.index(),
+                                    Try.failure(new RuntimeException("Generation phase failed", result.dataSet().getCause())));
+                        }),
+                generated.filter(result -> result.dataSet().isSuccess())
+                        .collectList()
+                        .flatMapMany(ready -> internalSyncAll(ready, sessionId))
+        ));
+    }
+}
@@ -1,15 +1,21 @@
 package com.catgineer.analytics_assistant.application.services;
 
-import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.SingleFlight;
 import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
 import com.catgineer.analytics_assistant.domain.services.AIService;
+import com.catgineer.analytics_assistant.domain.services.ChartResultCache;
+import com.catgineer.analytics_assistant.domain.services.DatasetPool;
 import com.catgineer.analytics_assistant.domain.services.VisualisationService;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 import static io.vavr.API.*;
 import static io.vavr.Patterns.$Failure;
@@ -20,55 +26,98 @@ public class GenerateChartFromPrompt {
     private static final Logger logger = LoggerFactory.getLogger(GenerateChartFromPrompt.class);
     private final AIService aiService;
     private final VisualisationService visualisationService;
+    private final ChartResultCache chartResultCache;
+    private final DatasetPool datasetPool;
+    private final SingleFlight<String, Try<Integer>> inFlightCharts = new SingleFlight<>("chart_generation");
 
     public GenerateChartFromPrompt(
             AIService aiService,
-            VisualisationService visualisationService
+            VisualisationService visualisationService,
+            ChartResultCache chartResultCache,
+            DatasetPool datasetPool
     ) {
         this.aiService = aiService;
         this.visualisationService = visualisationService;
+        this.chartResultCache = chartResultCache;
+        this.datasetPool = datasetPool;
     }
 
-    private Integer internalExecuteFlow(String prompt, String modelName, List<String> sourceUrls, String targetTableName, Integer targetDatasetId
-    ) throws Exception {
-            logger.info("Executing ingestion and generation flow for model: {}", modelName);
+    private Mono<Try<Integer>> internalExecuteFlow(String prompt, String modelName, List<String> sourceUrls, String sessionId) {
+        logger.info("Executing ingestion and generation flow for model: {}", modelName);
 
-
-        // Generation of Chart Data.
+        // Generation of Chart Data (skipped on a cache hit, shared across sessions), then Visualisation Sync
+        // on this session's own slot.
         //
-        Try<ChartDataSet> aiResult = aiService.generateChartData(prompt, modelName)
-                .toFuture()
-                .get();
-
+        return chartResultCache.getOrGenerate(prompt, modelName, sourceUrls, () -> aiService.generateChartData(prompt, modelName))
+                .flatMap(aiResult -> Match(aiResult).<Mono<Try<Integer>>>of(
+                        Case($Success($()), dataSet -> internalSync(dataSet, sessionId)),
+                        Case($Failure($()), ex -> {
+                            logger.error("AI extraction failed");
+                            return Mono.just(Try.<Integer>failure(new RuntimeException("Generation phase failed", ex)));
+                        })
+                ));
+    }
 
+    private Mono<Try<Integer>> internalSync(ChartDataSet dataSet, String sessionId) {
+        return datasetPool.withSlot(sessionId, slot -> visualisationService.syncDataToVisualisation(dataSet, slot))
+                .map(syncResult -> Match(syncResult).<Try<Integer>>of(
+                        Case($Success($()), id -> {
+                            logger.info("Successfully synchronized dataset: {}", id);
+                            return Try.success(id);
+                        }),
+                        Case($Failure($()), ex -> {
+                            logger.error("Sync failed for dataset: {}", dataSet.id());
+                            return Try.failure(new RuntimeException("Visualisation phase failed", ex));
+                        })
+                ));
+    }
 
-        ChartDataSet dataSet = Match(aiResult).of(
-                Case($Success($()), data -> data),
-                Case($Failure($()), ex -> {
-                    logger.error("AI extraction failed");
-                    throw new RuntimeException("Generation phase failed", ex);
-                })
+    private Flux<Try<ChartStreamEvent>> internalSyncStreamed(ChartDataSet dataSet, String sessionId) {
+        return Flux.concat(
+                Flux.just(Try.<ChartStreamEvent>success(new ChartStreamEvent.Progress("visualisation"))),
+                datasetPool.withSlot(sessionId, slot -> visualisationService.syncDataToVisualisation(dataSet, slot))
+                        .map(syncResult -> syncResult.<ChartStreamEvent>map(ChartStreamEvent.ChartReady::new))
         );
+    }
 
-        // Visualisation Sync.
-        //
-        Try<Integer> syncResult = visualisationService.syncDataToVisualisation(dataSet, targetTableName, targetDatasetId)
-                .toFuture()
-                .get();
+    private Flux<Try<ChartStreamEvent>> internalStreamGeneration(Optional<String> cacheKey, String prompt, String modelName, String sessionId) {
+        return aiService.streamChartData(prompt, modelName)
+                .concatMap(update -> {
+                    if (update.isFailure()) {
+                        logger.error("Streamed generation failed: {}", update.getCause().getMessage());
+                        return Flux.just(update);
+                    }
+                    return switch (update.get()) {
+                        case ChartStreamEvent.DataReady ready -> cacheKey
+                                .map(key -> chartResultCache.store(key, ready.dataSet()))
+                                .orElseGet(() -> Mono.just(Try.success(ready.dataSet())))
+                                .flatMapMany(stored -> internalSyncStreamed(ready.dataSet(), sessionId));
+                        default -> Flux.just(update);
+                    };
+                });
+    }
 
-        return Match(syncResult).of(
-                Case($Success($()), id -> {
-                    logger.info("Successfully synchronized dataset: {}", id);
-                    return id;
-                }),
-                Case($Failure($()), ex -> {
-                    logger.error("Sync failed for dataset: {}", targetDatasetId);
-                    throw new RuntimeException("Visualisation phase failed", ex);
-                })
-        );
+    public Flux<Try<ChartStreamEvent>> executeStreaming(String prompt, String modelName, List<String> sourceUrls, String sessionId) {
+        logger.info("Executing streamed generation flow for model: {}", modelName);
+
+        return chartResultCache.resolveKey(prompt, modelName, sourceUrls)
+                .flatMapMany(cacheKey -> cacheKey
+                        .map(chartResultCache::lookup)
+                        .orElseGet(() -> Mono.just(Optional.empty()))
+                        .flatMapMany(cached -> cached
+                                .map(dataSet -> Flux.concat(
+                                        Flux.just(Try.<ChartStreamEvent>success(new ChartStreamEvent.Progress("cache"))),
+                                        internalSyncStreamed(dataSet, sessionId)))
+                                .orElseGet(() -> internalStreamGeneration(cacheKey, prompt, modelName, sessionId))));
     }
 
-    public Mono<Try<Integer>> execute(String prompt, String modelName, List<String> sourceUrls, String targetTableName, Integer targetDatasetId) {
-        return SafeRunner.futureSafe(() -> internalExecuteFlow(prompt, modelName, sourceUrls, targetTableName, targetDatasetId));
+    /**
+     * Identical requests (prompt, model, sources and session) that arrive while one is running share its
+     * execution and chart id. The session is part of the key because the chart lives on the session's slot;
+     * identical requests of other sessions share only the generation, then chart on their own slots.
+     */
+    public Mono<Try<Integer>> execute(String prompt, String modelName, List<String> sourceUrls, String sessionId) {
+        String flightKey = chartResultCache.keyFor(prompt, modelName, sourceUrls) + "\u0000" + Objects.requireNonNullElse(sessionId, "");
+        return inFlightCharts.execute(flightKey, () -> internalExecuteFlow(prompt, modelName, sourceUrls, sessionId));
     }
 }
@@ -1,6 +1,5 @@
 package com.catgineer.analytics_assistant.application.services;
 
-import com.catgineer.analytics_assistant.domain.SafeRunner;
 import com.catgineer.analytics_assistant.domain.model.SourceData;
 import com.catgineer.analytics_assistant.domain.services.AIService;
 import com.catgineer.analytics_assistant.domain.services.DataSourceService;
@@ -27,47 +26,53 @@ public class IngestSources {
         this.embeddingEnabled = embeddingEnabled;
     }
 
-    private Boolean internalIngest(List<String> urls) throws Exception {
+    private Mono<Try<Boolean>> internalEmbedSource(SourceData data) {
+        logger.info("Stage [Data Fetching] success for {}. Triggering embedding.", data.sourceUrl());
 
-        if (!embeddingEnabled) {return true;} 
+        return aiService.embedChangedChunks(data.sourceUrl(), data.body(), data.previousChunkHashes())
+                .flatMap(embedResult -> Match(embedResult).<Mono<Try<Boolean>>>of(
+                        Case($Success($()), chunkHashes -> {
+                            logger.info("Stage [Android Embedding] success for {}", data.sourceUrl());
+                            return internalRecordLedger(data, chunkHashes);
+                        }),
+                        Case($Failure($()), ex -> {
+                            logger.error("Stage [Android Embedding] failed for {}", data.sourceUrl());
+                            return Mono.just(Try.<Boolean>failure(ex));
+                        })
+                ));
+    }
 
-        logger.info("Starting ingestion for {} sources", urls.size());
+    // The chunks are embedded at this point; a ledger write failure only means they are re-sent next time.
+    private Mono<Try<Boolean>> internalRecordLedger(SourceData data, List<String> chunkHashes) {
+        return dataSourceService.recordIngestion(data, chunkHashes)
+                .map(recordResult -> Match(recordResult).<Try<Boolean>>of(
+                        Case($Success($(true)), ok -> Try.success(true)),
+                        Case($(), failed -> {
+                            logger.warn("Stage [Ledger] could not record ingestion of {}", data.sourceUrl());
+                            return Try.success(true);
+                        })
+                ));
+    }
 
-        List<Try<SourceData>> ingestionResults = dataSourceService.fetchMultipleSources(urls)
-                .collectList()
-                .toFuture()
-                .get();
+    private Mono<Try<Boolean>> internalIngest(List<String> urls) {
 
-        List<Try<Boolean>> embeddingResults = ingestionResults.stream()
-                .map(sourceResult -> Match(sourceResult).of(
-                        Case($Success($()), (SourceData data) -> {
-                            logger.info("Stage [Data Fetching] success for {}. Triggering embedding.", data.sourceUrl());
-                            
-                            Try<Try<Boolean>> embedOp = Try.of(() -> 
-                                aiService.embedData(data.content()).toFuture().get()
-                            );
+        if (!embeddingEnabled) {return Mono.just(Try.success(true));}
 
-                            return Match(embedOp).of(
-                                Case($Success($()), res -> {
-                                    logger.info("Stage [Android Embedding] success for {}", data.sourceUrl());
-                                    return res;
-                                }),
-                                Case($Failure($()), ex -> {
-                                    logger.error("Stage [Android Embedding] failed for {}", data.sourceUrl());
-                                    return Try.<Boolean>failure(ex);
-                                })
-                            );
-                        }),
+        logger.info("Starting ingestion for {} sources", urls.size());
+
+        return dataSourceService.fetchChangedSources(urls)
+                .flatMap(sourceResult -> Match(sourceResult).<Mono<Try<Boolean>>>of(
+                        Case($Success($()), data -> internalEmbedSource(data).doFinally(signal -> data.body().release())),
                         Case($Failure($()), ex -> {
                             logger.error("Stage [Data Fetching] failed: {}", ex.getMessage());
-                            return Try.<Boolean>failure(ex);
+                            return Mono.just(Try.<Boolean>failure(ex));
                         })
-                )).toList();
-
-        return embeddingResults.stream().allMatch(Try::isSuccess);
+                ))
+                .collectList()
+                .map(embeddingResults -> Try.success(embeddingResults.stream().allMatch(Try::isSuccess)));
     }
 
     public Mono<Try<Boolean>> execute(List<String> urls) {
-        return SafeRunner.futureSafe(() -> internalIngest(urls));
+        return internalIngest(urls);
     }
 }
@@ -1,15 +1,29 @@
 package com.catgineer.analytics_assistant.control.configuration;
 
+import com.catgineer.analytics_assistant.application.services.ChartJobs;
+import com.catgineer.analytics_assistant.application.services.GenerateChartBatch;
 import com.catgineer.analytics_assistant.application.services.GenerateChartFromPrompt;
 import com.catgineer.analytics_assistant.application.services.IngestSources;
+import com.catgineer.analytics_assistant.domain.FetchScheduler;
 import com.catgineer.analytics_assistant.domain.services.AIService;
+import com.catgineer.analytics_assistant.domain.services.ChartResultCache;
 import com.catgineer.analytics_assistant.domain.services.DataSourceService;
+import com.catgineer.analytics_assistant.domain.services.DatasetPool;
+import com.catgineer.analytics_assistant.domain.services.SchemaCache;
 import com.catgineer.analytics_assistant.domain.services.VisualisationService;
+import com.catgineer.analytics_assistant.infrastructure.adapters.AdmissionControlledAIProvider;
+import com.catgineer.analytics_assistant.infrastructure.adapters.Chunker;
 import com.catgineer.analytics_assistant.infrastructure.adapters.OpenWebUIAdapter;
+import com.catgineer.analytics_assistant.infrastructure.adapters.PostgresChartJobStore;
+import com.catgineer.analytics_assistant.infrastructure.adapters.PostgresChartResultStore;
+import com.catgineer.analytics_assistant.infrastructure.adapters.PostgresIngestionLedger;
 import com.catgineer.analytics_assistant.infrastructure.adapters.SupersetAdapter;
 import com.catgineer.analytics_assistant.infrastructure.adapters.WebDataSourceAdapter;
 import com.catgineer.analytics_assistant.infrastructure.ports.AIProvider;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartJobStore;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartResultStore;
 import com.catgineer.analytics_assistant.infrastructure.ports.DataSourceProvider;
+import com.catgineer.analytics_assistant.infrastructure.ports.IngestionLedger;
 import com.catgineer.analytics_assistant.infrastructure.ports.VisualisationProvider;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -17,12 +31,17 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import org.springframework.http.client.JdkClientHttpRequestFactory;
-import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Configuration
 public class BeanConfiguration {
@@ -60,69 +79,189 @@ public class BeanConfiguration {
     }
 
     @Bean
-    public DataSourceProvider dataSourceAdapter() {
-        return new WebDataSourceAdapter(RestClient.builder());
+    public HttpClientPools httpClientPools(Environment environment) {
+        return new HttpClientPools(environment);
+    }
+
+    @Bean
+    public DataSourceProvider dataSourceAdapter(HttpClientPools httpClientPools) {
+        return new WebDataSourceAdapter(httpClientPools.webClientBuilder(HttpClientPools.SOURCES));
     }
 
     // --- Infrastructure ---
 
     @Bean
     public OpenWebUIAdapter openWebUIAdapter(
+            HttpClientPools httpClientPools,
             @Value("${OPENWEBUI_API_BASEURL}") String baseUrl,
             @Value("${SUPERSET_DATASET_ID}") String targetDatasetId,
             @Value("${SUPERSET_TABLE_NAME}") String targetTableName,
             @Value("${OPENWEBUI_API_KEY}") String apiKey,
-            @Value("${EMBEDDING_NODE_URL}") String bridgeUrl
+            @Value("${EMBEDDING_NODE_URL}") String bridgeUrl,
+            @Value("${EMBEDDING_CHUNKER:auto}") String chunkingStrategy,
+            @Value("${EMBEDDING_CHUNK_BYTES:8192}") int chunkBytes,
+            @Value("${EMBEDDING_CHUNK_OVERLAP_BYTES:0}") int chunkOverlapBytes,
+            @Value("${EMBEDDING_MAX_IN_FLIGHT:8}") int embedMaxInFlight,
+            @Value("${EMBEDDING_MAX_RETRIES:3}") int embedMaxRetries,
+            @Value("${EMBEDDING_RETRY_BACKOFF_MS:250}") long embedRetryBackoffMs
     ) {
-        HttpClient httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
-
-        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
-        factory.setReadTimeout(Duration.ofMinutes(5)); 
-
-        RestClient.Builder builder = RestClient.builder().requestFactory(factory);
+        // Completions, blocking and streamed, share the AI pool; the bridge gets its own pool and no credentials.
+        RestClient.Builder builder = httpClientPools.restClientBuilder(HttpClientPools.AI);
+        WebClient.Builder streamingBuilder = httpClientPools.webClientBuilder(HttpClientPools.AI);
+        WebClient.Builder bridgeBuilder = httpClientPools.webClientBuilder(HttpClientPools.BRIDGE);
 
         return new OpenWebUIAdapter(
             builder, 
+            streamingBuilder,
+            bridgeBuilder,
             baseUrl, 
             targetDatasetId,
             targetTableName,
             apiKey, 
-            bridgeUrl
+            bridgeUrl,
+            Chunker.named(chunkingStrategy, chunkBytes, chunkOverlapBytes),
+            embedMaxInFlight,
+            embedMaxRetries,
+            Duration.ofMillis(embedRetryBackoffMs)
+        );
+    }
+
+    /**
+     * The AIProvider the services use: the OpenWebUI adapter behind a per-model admission limiter.
+     */
+    @Bean
+    @Primary
+    public AIProvider aiProvider(
+            OpenWebUIAdapter openWebUIAdapter,
+            @Value("${AI_LIMIT_INITIAL:4}") int initialLimit,
+            @Value("${AI_LIMIT_MAX:32}") int maxLimit,
+            @Value("${AI_LIMIT_MODEL_MAX:}") String modelMaxLimits, // e.g. "llama3:8b=4,mistral=8"
+            @Value("${AI_LIMIT_MAX_QUEUED:50}") int maxQueued,
+            @Value("${AI_LIMIT_LATENCY_TARGET_MS:30000}") long latencyTargetMs
+    ) {
+        Map<String, Integer> modelLimits = Arrays.stream(modelMaxLimits.split(","))
+                .map(String::strip)
+                .filter(entry -> !entry.isEmpty())
+                .map(entry -> entry.split("=", 2))
+                .collect(Collectors.toMap(entry -> entry[0].strip(), entry -> Integer.parseInt(entry[1].strip())));
+        return new AdmissionControlledAIProvider(
+            openWebUIAdapter,
+            initialLimit,
+            maxLimit,
+            modelLimits,
+            maxQueued,
+            Duration.ofMillis(latencyTargetMs)
         );
     }
 
     @Bean
     public VisualisationProvider supersetAdapter(
+            HttpClientPools httpClientPools,
             JdbcTemplate dbConnection,
             @Value("${SUPERSET_BASE_URL}") String baseUrl,
             @Value("${SUPERSET_USERNAME}") String userName,
             @Value("${SUPERSET_PASSWORD}") String password,
-            @Value("${SUPERSET_TABLE_NAME}") String targetTableName,
-            @Value("${SUPERSET_DATASET_ID}") String targetDatasetId
+            @Value("${SUPERSET_TOKEN_REFRESH_AHEAD_SECONDS:60}") long tokenRefreshAheadSeconds
     ){
         return new SupersetAdapter(
-            RestClient.builder(), 
+            httpClientPools.restClientBuilder(HttpClientPools.SUPERSET),
             dbConnection,
             baseUrl,
             userName,
             password,
-            targetTableName,
-            targetDatasetId
+            Duration.ofSeconds(tokenRefreshAheadSeconds)
         );
     }
 
+    @Bean
+    public ChartResultStore chartResultStore(JdbcTemplate dbConnection) {
+        return new PostgresChartResultStore(dbConnection);
+    }
+
+    @Bean
+    public ChartJobStore chartJobStore(JdbcTemplate dbConnection) {
+        return new PostgresChartJobStore(dbConnection);
+    }
+
+    @Bean
+    public IngestionLedger ingestionLedger(JdbcTemplate dbConnection) {
+        return new PostgresIngestionLedger(dbConnection);
+    }
+
     // --- Domain Services ---
 
     @Bean
-    public AIService aiService(AIProvider aiProvider) {
-        return new AIService(aiProvider);
+    public SchemaCache schemaCache(
+            @Value("${SCHEMA_CACHE_MAX_ENTRIES:128}") int maxEntries,
+            @Value("${SCHEMA_CACHE_TTL_HOURS:168}") long ttlHours
+    ) {
+        return new SchemaCache(maxEntries, Duration.ofHours(ttlHours));
+    }
+
+    @Bean
+    public AIService aiService(
+            AIProvider aiProvider,
+            SchemaCache schemaCache,
+            @Value("${AI_SINGLE_PASS_MODELS:}") String singlePassModels
+    ) {
+        Set<String> models = Arrays.stream(singlePassModels.split(","))
+                .map(String::strip)
+                .filter(model -> !model.isEmpty())
+                .collect(Collectors.toSet());
+        return new AIService(aiProvider, schemaCache, models);
+    }
+
+    @Bean
+    public FetchScheduler fetchScheduler(
+            @Value("${SOURCE_MAX_IN_FLIGHT:16}") int maxInFlight,
+            @Value("${SOURCE_MAX_PER_HOST:4}") int maxPerHost,
+            @Value("${SOURCE_RATE_PER_SECOND:0}") double ratePerSecond,
+            @Value("${SOURCE_RATE_BURST:5}") int burst,
+            @Value("${SOURCE_HOST_RATES:}") String hostRates // e.g. "api.github.com=1.2,example.org=10"
+    ) {
+        Map<String, Double> rates = Arrays.stream(hostRates.split(","))
+                .map(String::strip)
+                .filter(entry -> !entry.isEmpty())
+                .map(entry -> entry.split("=", 2))
+                .collect(Collectors.toMap(
+                        entry -> entry[0].strip().toLowerCase(),
+                        entry -> Double.parseDouble(entry[1].strip())));
+        return new FetchScheduler(maxInFlight, maxPerHost, ratePerSecond, burst, rates);
     }
 
     @Bean
-    public DataSourceService dataSourceService(DataSourceProvider dataSourceAdapter) {
-        return new DataSourceService(dataSourceAdapter);
+    public DataSourceService dataSourceService(
+            DataSourceProvider dataSourceAdapter,
+            IngestionLedger ingestionLedger,
+            FetchScheduler fetchScheduler,
+            @Value("${SOURCE_MAX_PAGES:50}") int maxPages,
+            @Value("${SOURCE_PAGE_CONCURRENCY:4}") int pageConcurrency) {
+        return new DataSourceService(dataSourceAdapter, ingestionLedger, fetchScheduler, maxPages, pageConcurrency);
+    }
+
+    @Bean(destroyMethod = "close")
+    public DatasetPool datasetPool(
+            VisualisationProvider supersetAdapter,
+            @Value("${SUPERSET_TABLE_NAME}") String baseTableName,
+            @Value("${SUPERSET_DATASET_ID}") Integer baseDatasetId,
+            @Value("${DATASET_POOL_MAX_SLOTS:32}") int maxSlots,
+            @Value("${DATASET_POOL_MIN_FREE:1}") int minFree,
+            @Value("${DATASET_POOL_MAX_FREE:4}") int maxFree,
+            @Value("${DATASET_POOL_IDLE_TIMEOUT_MINUTES:30}") long idleTimeoutMinutes,
+            @Value("${DATASET_POOL_JANITOR_INTERVAL_SECONDS:60}") long janitorIntervalSeconds
+    ) {
+        DatasetPool pool = new DatasetPool(
+            supersetAdapter,
+            baseTableName,
+            baseDatasetId,
+            maxSlots,
+            minFree,
+            maxFree,
+            Duration.ofMinutes(idleTimeoutMinutes),
+            Duration.ofSeconds(janitorIntervalSeconds)
+        );
+        pool.start();
+        return pool;
     }
 
     @Bean
@@ -141,12 +280,50 @@ public class BeanConfiguration {
         return new IngestSources(dataSourceService, aiService, embeddingEnabled);
     }
 
+    @Bean
+    public ChartResultCache chartResultCache(
+            ChartResultStore chartResultStore,
+            IngestionLedger ingestionLedger,
+            @Value("${CHART_CACHE_MAX_ENTRIES:256}") int maxEntries,
+            @Value("${CHART_CACHE_TTL_MINUTES:360}") long ttlMinutes,
+            @Value("${CHART_CACHE_PERSISTENT:false}") boolean persistent
+    ) {
+        return new ChartResultCache(chartResultStore, ingestionLedger, maxEntries, Duration.ofMinutes(ttlMinutes), persistent);
+    }
+
     @Bean
     public GenerateChartFromPrompt generateChartFromPrompt(
         AIService aiService,
-        VisualisationService visualisationService
+        VisualisationService visualisationService,
+        ChartResultCache chartResultCache,
+        DatasetPool datasetPool
+        ){
+        return new GenerateChartFromPrompt(aiService, visualisationService, chartResultCache, datasetPool);
+    }
+
+    // A batch leases one dataset slot per chart, so CHART_BATCH_MAX_CHARTS should not exceed DATASET_POOL_MAX_SLOTS.
+    @Bean
+    public GenerateChartBatch generateChartBatch(
+        AIService aiService,
+        VisualisationService visualisationService,
+        ChartResultCache chartResultCache,
+        DatasetPool datasetPool,
+        @Value("${CHART_BATCH_CONCURRENCY:4}") int concurrency,
+        @Value("${CHART_BATCH_MAX_CHARTS:30}") int maxCharts
+        ){
+        return new GenerateChartBatch(aiService, visualisationService, chartResultCache, datasetPool, concurrency, maxCharts);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ChartJobs chartJobs(
+        GenerateChartFromPrompt generateChartFromPrompt,
+        ChartResultCache chartResultCache,
+        ChartJobStore chartJobStore,
+        @Value("${CHART_JOB_INSTANCE_ID:${HOSTNAME:local}}") String instanceId,
+        @Value("${CHART_JOB_WORKERS:4}") int maxWorkers,
+        @Value("${CHART_JOB_MAX_PENDING:100}") int maxPending
         ){
-        return new GenerateChartFromPrompt(aiService, visualisationService);
+        return new ChartJobs(generateChartFromPrompt, chartResultCache, chartJobStore, instanceId, maxWorkers, maxPending);
     }
 
 }
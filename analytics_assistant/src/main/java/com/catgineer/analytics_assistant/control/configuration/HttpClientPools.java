@@ -0,0 +1,129 @@
+package com.catgineer.analytics_assistant.control.configuration;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One named Reactor Netty connection pool per upstream, shared by the RestClient and the WebClient of that upstream.
+ * Every setting can be overridden per pool from the environment, e.g. HTTP_SOURCES_MAX_CONNECTIONS or HTTP_AI_HTTP2.
+ * Pool occupancy is exported as the reactor.netty.connection.provider.* gauges, tagged with the pool name.
+ */
+public class HttpClientPools implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientPools.class);
+
+    public static final String AI = "ai";
+    public static final String SUPERSET = "superset";
+    public static final String BRIDGE = "bridge";
+    public static final String SOURCES = "sources";
+
+    /**
+     * A response timeout of zero leaves responses unbounded, for streams that stay open as long as they produce.
+     */
+    public record PoolSettings(
+            int maxConnections,
+            int maxPendingAcquires,
+            Duration connectTimeout,
+            Duration responseTimeout,
+            Duration maxIdleTime,
+            Duration maxLifeTime,
+            boolean http2
+    ) {}
+
+    private static final Map<String, PoolSettings> DEFAULTS = Map.of(
+            AI, new PoolSettings(50, 500, Duration.ofSeconds(10), Duration.ofMinutes(5), Duration.ofSeconds(60), Duration.ofMinutes(10), true),
+            SUPERSET, new PoolSettings(20, 200, Duration.ofSeconds(5), Duration.ofSeconds(60), Duration.ofSeconds(60), Duration.ofMinutes(10), false),
+            BRIDGE, new PoolSettings(16, 500, Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofSeconds(30), Duration.ofMinutes(10), false),
+            SOURCES, new PoolSettings(32, 1000, Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofSeconds(30), Duration.ofMinutes(5), true)
+    );
+
+    private final Environment environment;
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+
+    public HttpClientPools(Environment environment) {
+        this.environment = environment;
+    }
+
+    public RestClient.Builder restClientBuilder(String pool) {
+        return RestClient.builder().requestFactory(new ReactorClientHttpRequestFactory(client(pool)));
+    }
+
+    public WebClient.Builder webClientBuilder(String pool) {
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(client(pool)));
+    }
+
+    public HttpClient client(String pool) {
+        return clients.computeIfAbsent(pool, this::internalCreateClient);
+    }
+
+    private PoolSettings internalSettings(String pool) {
+        PoolSettings defaults = DEFAULTS.get(pool);
+        if (defaults == null) {
+            throw new IllegalArgumentException("Unknown HTTP pool: " + pool);
+        }
+
+        String prefix = "HTTP_" + pool.toUpperCase() + "_";
+        return new PoolSettings(
+                environment.getProperty(prefix + "MAX_CONNECTIONS", Integer.class, defaults.maxConnections()),
+                environment.getProperty(prefix + "MAX_PENDING_ACQUIRES", Integer.class, defaults.maxPendingAcquires()),
+                internalDuration(prefix + "CONNECT_TIMEOUT_MS", defaults.connectTimeout()),
+                internalDuration(prefix + "RESPONSE_TIMEOUT_MS", defaults.responseTimeout()),
+                internalDuration(prefix + "MAX_IDLE_MS", defaults.maxIdleTime()),
+                internalDuration(prefix + "MAX_LIFE_MS", defaults.maxLifeTime()),
+                environment.getProperty(prefix + "HTTP2", Boolean.class, defaults.http2()));
+    }
+
+    private Duration internalDuration(String key, Duration fallback) {
+        Long millis = environment.getProperty(key, Long.class);
+        return millis == null ? fallback : Duration.ofMillis(millis);
+    }
+
+    private HttpClient internalCreateClient(String pool) {
+        PoolSettings settings = internalSettings(pool);
+
+        // Idle and aged connections are evicted in the background, so a reused connection is rarely one the peer already closed.
+        ConnectionProvider provider = ConnectionProvider.builder(pool)
+                .maxConnections(settings.maxConnections())
+                .pendingAcquireMaxCount(settings.maxPendingAcquires())
+                .pendingAcquireTimeout(settings.connectTimeout().plus(Duration.ofSeconds(30)))
+                .maxIdleTime(settings.maxIdleTime())
+                .maxLifeTime(settings.maxLifeTime())
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+        providers.put(pool, provider);
+
+        // With HTTP/2 enabled, TLS connections negotiate it via ALPN; plain-text connections stay on HTTP/1.1.
+        HttpClient client = HttpClient.create(provider)
+                .protocol(settings.http2() ? new HttpProtocol[] {HttpProtocol.HTTP11, HttpProtocol.H2} : new HttpProtocol[] {HttpProtocol.HTTP11})
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.connectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(true);
+        if (!settings.responseTimeout().isZero()) {
+            client = client.responseTimeout(settings.responseTimeout());
+        }
+
+        logger.info("HTTP pool '{}' created: {}", pool, settings);
+        return client;
+    }
+
+    @Override
+    public void close() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+}
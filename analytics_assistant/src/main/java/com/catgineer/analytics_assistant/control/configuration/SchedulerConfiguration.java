@@ -0,0 +1,54 @@
+package com.catgineer.analytics_assistant.control.configuration;
+
+import com.catgineer.analytics_assistant.domain.SafeRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class SchedulerConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerConfiguration.class);
+
+    /**
+     * Scheduler used by {@link SafeRunner} for blocking RestClient/JDBC work.
+     * "virtual" (default) runs every task on the virtual-thread applicationTaskExecutor,
+     * "bounded-elastic" restores Reactor's capped platform-thread pool.
+     * SAFE_RUNNER_STAGE_LIMITS caps concurrency per stage, e.g. "postgres=20,openwebui=8".
+     */
+    @Bean
+    public Scheduler blockingScheduler(
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor applicationTaskExecutor,
+            @Value("${SAFE_RUNNER_SCHEDULER:virtual}") String strategy,
+            @Value("${SAFE_RUNNER_STAGE_LIMITS:}") String stageLimits
+    ) {
+        Scheduler scheduler = switch (strategy.trim().toLowerCase()) {
+            case "virtual" -> Schedulers.fromExecutor(applicationTaskExecutor);
+            case "bounded-elastic" -> Schedulers.boundedElastic();
+            default -> throw new IllegalStateException("Unknown SAFE_RUNNER_SCHEDULER strategy: " + strategy);
+        };
+        SafeRunner.configure(scheduler);
+        logger.info("SafeRunner configured with '{}' scheduler", strategy);
+
+        for (String entry : stageLimits.split(",")) {
+            if (entry.isBlank()) continue;
+
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalStateException("Malformed SAFE_RUNNER_STAGE_LIMITS entry: " + entry);
+            }
+            int limit = Integer.parseInt(parts[1].trim());
+            SafeRunner.limitStage(parts[0].trim(), limit);
+            logger.info("SafeRunner stage '{}' limited to {} concurrent tasks", parts[0].trim(), limit);
+        }
+
+        return scheduler;
+    }
+}
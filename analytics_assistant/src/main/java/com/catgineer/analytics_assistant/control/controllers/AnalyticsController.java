@@ -1,16 +1,27 @@
 package com.catgineer.analytics_assistant.control.controllers;
 
+import com.catgineer.analytics_assistant.application.services.ChartJobs;
+import com.catgineer.analytics_assistant.application.services.GenerateChartBatch;
 import com.catgineer.analytics_assistant.application.services.GenerateChartFromPrompt;
 import com.catgineer.analytics_assistant.application.services.IngestSources;
 import com.catgineer.analytics_assistant.control.configuration.AppConfigData;
+import com.catgineer.analytics_assistant.domain.AdmissionRejectedException;
+import com.catgineer.analytics_assistant.domain.model.BatchChartResult;
+import com.catgineer.analytics_assistant.domain.model.ChartJob;
+import com.catgineer.analytics_assistant.domain.model.ChartPrompt;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
 import com.catgineer.analytics_assistant.domain.services.AIService;
+import com.catgineer.analytics_assistant.domain.services.SchemaCache;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -20,10 +31,16 @@ import org.slf4j.LoggerFactory;
 import static io.vavr.API.*;
 import static io.vavr.Patterns.$Failure;
 import static io.vavr.Patterns.$Success;
+import static io.vavr.Predicates.instanceOf;
 
 record AuthRequest(String username, String password) {}
-record ChartRequest(String prompt, String modelName, List<String> sourceUrls, Integer targetDatasetId) {}
+// Requests with the same sessionId reuse the session's table and dataset; without one each request gets its own.
+record ChartRequest(String prompt, String modelName, List<String> sourceUrls, Integer targetDatasetId, String sessionId) {}
 record ChartResponse(Integer datasetId, String supersetUrl) {}
+// The charts of one dashboard; they share the batch's sessionId, and their own sessionIds are ignored.
+record BatchChartRequest(List<ChartRequest> charts, String sessionId) {}
+record BatchChartResponse(int index, ChartResponse chart, String error) {}
+record JobResponse(String jobId, String status, String stage, ChartResponse chart, String error) {}
 
 @RestController
 @RequestMapping("/api/v1")
@@ -32,30 +49,33 @@ public class AnalyticsController {
     private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
     private final IngestSources ingestionService;
     private final GenerateChartFromPrompt generateChartService;
+    private final ChartJobs chartJobs;
+    private final GenerateChartBatch generateChartBatch;
     private final AIService aiService;
+    private final SchemaCache schemaCache;
     private final AppConfigData appConfig;
     
-    private final Integer targetDatasetId;
-    private final String targetTableName;
     private final String supersetBaseUrl;
     private final Boolean embeddingEnabled;
 
     public AnalyticsController(
             IngestSources ingestionService,
             GenerateChartFromPrompt generateChartService, 
+            ChartJobs chartJobs,
+            GenerateChartBatch generateChartBatch,
             AIService aiService,
+            SchemaCache schemaCache,
             AppConfigData appConfig, // A bean loaded by Spring.
-            @Value("${SUPERSET_DATASET_ID}") Integer targetDatasetId,
-            @Value("${SUPERSET_TABLE_NAME}") String targetTableName,
             @Value("${SUPERSET_BASE_URL}") String supersetBaseUrl,
             @Value("${ENABLE_EMBEDDING}") Boolean embeddingEnabled
     ) {
         this.ingestionService = ingestionService;
         this.generateChartService = generateChartService;
+        this.chartJobs = chartJobs;
+        this.generateChartBatch = generateChartBatch;
         this.aiService = aiService;
+        this.schemaCache = schemaCache;
         this.appConfig = appConfig;
-        this.targetDatasetId = targetDatasetId;
-        this.targetTableName = targetTableName;
         this.supersetBaseUrl = supersetBaseUrl;
         this.embeddingEnabled = embeddingEnabled;
     }
@@ -76,19 +96,152 @@ public class AnalyticsController {
                 request.prompt(), 
                 request.modelName(), 
                 request.sourceUrls(),
-                targetTableName,
-                targetDatasetId
+                request.sessionId()
             )
-            .map(resultTry -> Match(resultTry).of(
-                Case($Success($()), id -> {
-                    // Using the injected ENV var for superset.
-                    String url = String.format("%s/explore/?dataset_id=%d", supersetBaseUrl, id);
-                    return ResponseEntity.ok(new ChartResponse(id, url));
-                }),
+            .map(resultTry -> Match(resultTry).<ResponseEntity<ChartResponse>>of(
+                Case($Success($()), id -> ResponseEntity.ok(internalBuildChartResponse(id))),
+                Case($Failure($(AnalyticsController::internalIsOverloaded)), ex -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build()),
                 Case($Failure($()), ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build())
             ));
     }
 
+    /**
+     * Streams generation progress as server-sent events: "progress" per stage, "header" once the
+     * CSV header is parsed, "rows" as rows arrive, then "chart" with the result or "error".
+     */
+    @PostMapping(value = "/charts/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> generateChartStream(@RequestBody ChartRequest request) {
+        return generateChartService.executeStreaming(
+                request.prompt(),
+                request.modelName(),
+                request.sourceUrls(),
+                request.sessionId()
+            )
+            .concatMap(eventTry -> Match(eventTry).<Flux<ServerSentEvent<Object>>>of(
+                Case($Success($()), this::internalToServerSentEvent),
+                Case($Failure($()), ex -> Flux.just(internalServerSentEvent("error", ex.getMessage())))
+            ));
+    }
+
+    /**
+     * Generates the charts of a dashboard together and streams a "chart" event per chart as it completes,
+     * carrying its index in the request and the chart or the error. Answers 400 when the batch is empty
+     * or larger than the configured maximum.
+     */
+    @PostMapping(value = "/charts/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> generateChartBatch(@RequestBody BatchChartRequest request) {
+        List<ChartRequest> charts = request.charts() == null ? List.of() : request.charts();
+        if (charts.isEmpty() || charts.size() > generateChartBatch.maxCharts()) {
+            logger.warn("Rejected batch of {} charts (maximum {})", charts.size(), generateChartBatch.maxCharts());
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        List<ChartPrompt> prompts = charts.stream()
+            .map(chart -> new ChartPrompt(chart.prompt(), chart.modelName(), chart.sourceUrls()))
+            .toList();
+        Flux<ServerSentEvent<Object>> events = generateChartBatch.execute(prompts, request.sessionId())
+            .map(result -> internalServerSentEvent("chart", internalBuildBatchResponse(result)));
+        return Mono.just(ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events));
+    }
+
+    /**
+     * Queues the generation and answers 202 with the job at once. Poll /charts/jobs/{id} or
+     * follow /charts/jobs/{id}/events for its progress. Resubmitting a queued or running request returns that job.
+     */
+    @PostMapping("/charts/jobs")
+    public Mono<ResponseEntity<JobResponse>> submitChartJob(@RequestBody ChartRequest request) {
+        return chartJobs.submit(
+                request.prompt(),
+                request.modelName(),
+                request.sourceUrls(),
+                request.sessionId()
+            )
+            .map(jobTry -> Match(jobTry).<ResponseEntity<JobResponse>>of(
+                Case($Success($()), job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(internalBuildJobResponse(job))),
+                Case($Failure($(instanceOf(IllegalStateException.class))), ex -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<JobResponse>build()),
+                Case($Failure($()), ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<JobResponse>build())
+            ));
+    }
+
+    @GetMapping("/charts/jobs/{jobId}")
+    public Mono<ResponseEntity<JobResponse>> getChartJob(@PathVariable String jobId) {
+        return chartJobs.find(jobId)
+            .map(jobTry -> Match(jobTry).<ResponseEntity<JobResponse>>of(
+                Case($Success($()), found -> found
+                    .map(job -> ResponseEntity.ok(internalBuildJobResponse(job)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+                Case($Failure($()), ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<JobResponse>build())
+            ));
+    }
+
+    /**
+     * Streams a "job" event whenever the job's status or stage changes; the stream ends once the job has finished.
+     */
+    @GetMapping(value = "/charts/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> watchChartJob(@PathVariable String jobId) {
+        return chartJobs.watch(jobId)
+            .map(jobTry -> Match(jobTry).<ServerSentEvent<Object>>of(
+                Case($Success($()), job -> internalServerSentEvent("job", internalBuildJobResponse(job))),
+                Case($Failure($()), ex -> internalServerSentEvent("error", ex.getMessage()))
+            ));
+    }
+
+    /**
+     * Drops the cached schema of the template the given prompt belongs to, or every cached schema
+     * when no prompt is given. The next matching request infers its schema again.
+     */
+    @DeleteMapping("/cache/schemas")
+    public ResponseEntity<String> invalidateSchemas(@RequestParam(required = false) String prompt) {
+        if (prompt == null || prompt.isBlank()) {
+            int cleared = schemaCache.invalidateAll();
+            return ResponseEntity.ok("Cleared " + cleared + " cached schemas");
+        }
+        return schemaCache.invalidate(prompt)
+            ? ResponseEntity.ok("Invalidated schema for: " + schemaCache.signatureOf(prompt))
+            : ResponseEntity.status(HttpStatus.NOT_FOUND).body("No cached schema for: " + schemaCache.signatureOf(prompt));
+    }
+
+    private Flux<ServerSentEvent<Object>> internalToServerSentEvent(ChartStreamEvent event) {
+        return switch (event) {
+            case ChartStreamEvent.Progress progress -> Flux.just(internalServerSentEvent("progress", progress));
+            case ChartStreamEvent.Header header -> Flux.just(internalServerSentEvent("header", header));
+            case ChartStreamEvent.Rows rows -> Flux.just(internalServerSentEvent("rows", rows));
+            case ChartStreamEvent.DataReady ready -> Flux.empty(); // Internal hand-off, not sent to clients.
+            case ChartStreamEvent.ChartReady chart ->
+                Flux.just(internalServerSentEvent("chart", internalBuildChartResponse(chart.chartId())));
+        };
+    }
+
+    // The AI backend's admission limiter rejected the request somewhere along its chain of causes.
+    private static boolean internalIsOverloaded(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AdmissionRejectedException) return true;
+        }
+        return false;
+    }
+
+    private static ServerSentEvent<Object> internalServerSentEvent(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    private BatchChartResponse internalBuildBatchResponse(BatchChartResult result) {
+        return Match(result.chartId()).<BatchChartResponse>of(
+            Case($Success($()), id -> new BatchChartResponse(result.index(), internalBuildChartResponse(id), null)),
+            Case($Failure($()), ex -> new BatchChartResponse(result.index(), null, ex.getMessage()))
+        );
+    }
+
+    private JobResponse internalBuildJobResponse(ChartJob job) {
+        ChartResponse chart = job.chartId() == null ? null : internalBuildChartResponse(job.chartId());
+        return new JobResponse(job.id(), job.status().name(), job.stage(), chart, job.error());
+    }
+
+    private ChartResponse internalBuildChartResponse(Integer id) {
+        // Using the injected ENV var for superset.
+        String url = String.format("%s/explore/?dataset_id=%d", supersetBaseUrl, id);
+        return new ChartResponse(id, url);
+    }
+
     // Triggered automatically when the Application Context is ready
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
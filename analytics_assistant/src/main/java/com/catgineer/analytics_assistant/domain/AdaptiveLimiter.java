@@ -0,0 +1,170 @@
+package com.catgineer.analytics_assistant.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limit that adapts to the backend with AIMD: each call answered within the latency target
+ * while the limit is at least half used raises it by one; a slow or failed call cuts it by backoffRatio.
+ * Calls over the limit wait in a FIFO queue of at most maxQueued; beyond that they are rejected at once
+ * with AdmissionRejectedException. Latency is measured from admission to the first result, so for
+ * streams it is the time to the first element; queueing time does not count.
+ * Exported as limiter.limit, limiter.in_flight, limiter.queued and limiter.rejected, tagged with the name.
+ */
+public final class AdaptiveLimiter {
+
+    private static final double BACKOFF_RATIO = 0.75;
+
+    private static final class Ticket {
+        private MonoSink<Void> sink;
+        private long admittedAt;
+        private boolean granted;
+        private boolean sampled;
+        private boolean released;
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long latencyTargetNanos;
+    private final Counter rejected;
+
+    private final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueued, Duration latencyTarget) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+        this.rejected = Counter.builder("limiter.rejected").tag("name", name).register(Metrics.globalRegistry);
+
+        Gauge.builder("limiter.limit", this, AdaptiveLimiter::limit).tag("name", name).register(Metrics.globalRegistry);
+        Gauge.builder("limiter.in_flight", this, AdaptiveLimiter::inFlight).tag("name", name).register(Metrics.globalRegistry);
+        Gauge.builder("limiter.queued", this, AdaptiveLimiter::queued).tag("name", name).register(Metrics.globalRegistry);
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return waiting.size();
+    }
+
+    /**
+     * Runs the call once admitted; a result matching failed counts like a slow call.
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> call, Predicate<T> failed) {
+        return Mono.defer(() -> {
+            Ticket ticket = new Ticket();
+            return internalAdmit(ticket)
+                    .then(Mono.defer(call))
+                    .doOnNext(result -> internalSample(ticket, failed.test(result)))
+                    .doOnError(ex -> internalSample(ticket, true))
+                    .doFinally(signal -> internalRelease(ticket));
+        });
+    }
+
+    /**
+     * Like run, for a stream that holds its slot until it terminates; only its first element is sampled.
+     */
+    public <T> Flux<T> runStream(Supplier<Flux<T>> call, Predicate<T> failed) {
+        return Flux.defer(() -> {
+            Ticket ticket = new Ticket();
+            return internalAdmit(ticket)
+                    .thenMany(Flux.defer(call))
+                    .doOnNext(result -> internalSample(ticket, failed.test(result)))
+                    .doOnError(ex -> internalSample(ticket, true))
+                    .doFinally(signal -> internalRelease(ticket));
+        });
+    }
+
+    private Mono<Void> internalAdmit(Ticket ticket) {
+        return Mono.create(sink -> {
+            boolean admitted = false;
+            synchronized (this) {
+                ticket.sink = sink;
+                if (inFlight < (int) limit) {
+                    internalGrant(ticket);
+                    admitted = true;
+                } else if (waiting.size() < maxQueued) {
+                    waiting.addLast(ticket);
+                } else {
+                    rejected.increment();
+                    sink.error(new AdmissionRejectedException(
+                            "Limiter " + name + " is saturated (" + inFlight + " in flight, " + waiting.size() + " queued)"));
+                    return;
+                }
+            }
+            sink.onCancel(() -> internalCancel(ticket));
+            if (admitted) sink.success();
+        });
+    }
+
+    private void internalGrant(Ticket ticket) {
+        ticket.granted = true;
+        ticket.admittedAt = System.nanoTime();
+        inFlight++;
+    }
+
+    private synchronized void internalCancel(Ticket ticket) {
+        if (!ticket.granted) waiting.remove(ticket);
+    }
+
+    private void internalSample(Ticket ticket, boolean failed) {
+        synchronized (this) {
+            if (!ticket.granted || ticket.sampled) return;
+            ticket.sampled = true;
+
+            boolean slow = System.nanoTime() - ticket.admittedAt > latencyTargetNanos;
+            if (failed || slow) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+        internalDrain();
+    }
+
+    private void internalRelease(Ticket ticket) {
+        synchronized (this) {
+            if (!ticket.granted || ticket.released) return;
+            ticket.released = true;
+            inFlight--;
+        }
+        internalDrain();
+    }
+
+    // Admits waiting calls up to the current limit; their sinks are completed outside the lock.
+    private void internalDrain() {
+        List<Ticket> admitted = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < (int) limit && !waiting.isEmpty()) {
+                Ticket ticket = waiting.pollFirst();
+                internalGrant(ticket);
+                admitted.add(ticket);
+            }
+        }
+        admitted.forEach(ticket -> ticket.sink.success());
+    }
+}
@@ -0,0 +1,10 @@
+package com.catgineer.analytics_assistant.domain;
+
+/**
+ * Raised when a limiter's wait queue is full, so the caller can shed the request instead of waiting.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,215 @@
+package com.catgineer.analytics_assistant.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admits outbound fetches under a global and a per-host concurrency limit and a per-host token bucket.
+ * Waiting fetches start in priority order (lower first, then arrival order); a fetch whose host is
+ * saturated or out of tokens is passed over for the next one that can run.
+ * Exports sources.fetch.queued, sources.fetch.in_flight, sources.fetch.wait and sources.fetch.requests (per host).
+ */
+public final class FetchScheduler {
+
+    private static final String UNKNOWN_HOST = "unknown";
+
+    private static final class Ticket {
+        private final String host;
+        private final int priority;
+        private final long sequence;
+        private final long enqueuedAt = System.nanoTime();
+        private Runnable grant;
+        private boolean granted;
+        private boolean released;
+
+        private Ticket(String host, int priority, long sequence) {
+            this.host = host;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    private final class Host {
+        private final double ratePerSecond; // 0 means unlimited
+        private final Counter requests;
+        private int inFlight;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private Host(String name) {
+            this.ratePerSecond = hostRates.getOrDefault(name, defaultRatePerSecond);
+            this.tokens = burst;
+            this.requests = Counter.builder("sources.fetch.requests").tag("host", name).register(Metrics.globalRegistry);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / 1e9);
+            refilledAt = now;
+        }
+
+        // Nanoseconds until the next token, or 0 when one is available.
+        private long nanosUntilToken(long now) {
+            if (ratePerSecond <= 0) return 0;
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerSecond * 1e9);
+        }
+    }
+
+    private final int maxInFlight;
+    private final int maxPerHost;
+    private final double defaultRatePerSecond;
+    private final int burst;
+    private final Map<String, Double> hostRates;
+    private final Timer waitTimer;
+
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+            Comparator.comparingInt((Ticket ticket) -> ticket.priority).thenComparingLong(ticket -> ticket.sequence));
+    private final Map<String, Host> hosts = new HashMap<>();
+    private long sequence;
+    private int inFlight;
+    private long refillAt = Long.MAX_VALUE; // deadline of the earliest scheduled refill drain
+
+    public FetchScheduler(int maxInFlight, int maxPerHost, double defaultRatePerSecond, int burst, Map<String, Double> hostRates) {
+        if (maxInFlight <= 0 || maxPerHost <= 0) {
+            throw new IllegalArgumentException("Fetch concurrency limits must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxPerHost = maxPerHost;
+        this.defaultRatePerSecond = defaultRatePerSecond;
+        this.burst = Math.max(1, burst);
+        this.hostRates = Map.copyOf(hostRates);
+        this.waitTimer = Timer.builder("sources.fetch.wait")
+                .description("Time a fetch waited for a concurrency slot and a rate-limit token")
+                .register(Metrics.globalRegistry);
+
+        Gauge.builder("sources.fetch.queued", this, FetchScheduler::queued).register(Metrics.globalRegistry);
+        Gauge.builder("sources.fetch.in_flight", this, FetchScheduler::inFlight).register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Subscribes to the task once the url's host may be fetched; the slot is held until the task terminates or is cancelled.
+     */
+    public <T> Mono<T> schedule(String url, int priority, Supplier<Mono<T>> task) {
+        return Mono.defer(() -> {
+            Ticket ticket;
+            synchronized (this) {
+                ticket = new Ticket(internalHostOf(url), priority, sequence++);
+            }
+
+            return Mono.<Void>create(sink -> {
+                        ticket.grant = sink::success;
+                        sink.onCancel(() -> internalCancel(ticket));
+                        internalEnqueue(ticket);
+                    })
+                    .then(Mono.defer(task))
+                    .doFinally(signal -> internalRelease(ticket));
+        });
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private static String internalHostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? UNKNOWN_HOST : host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN_HOST;
+        }
+    }
+
+    private void internalEnqueue(Ticket ticket) {
+        synchronized (this) {
+            queue.add(ticket);
+        }
+        internalDrain();
+    }
+
+    private synchronized void internalCancel(Ticket ticket) {
+        if (!ticket.granted) queue.remove(ticket);
+    }
+
+    private void internalRelease(Ticket ticket) {
+        synchronized (this) {
+            if (!ticket.granted || ticket.released) return;
+            ticket.released = true;
+            inFlight--;
+            hosts.get(ticket.host).inFlight--;
+        }
+        internalDrain();
+    }
+
+    /**
+     * Grants every waiting ticket that fits the limits, in priority order. Grants run outside the lock,
+     * since they subscribe to the task. When a host is only out of tokens, a drain is scheduled for its refill.
+     */
+    private void internalDrain() {
+        List<Ticket> granted = new ArrayList<>();
+        long refillIn = Long.MAX_VALUE;
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            List<Ticket> skipped = new ArrayList<>();
+
+            while (inFlight < maxInFlight && !queue.isEmpty()) {
+                Ticket ticket = queue.poll();
+                Host host = hosts.computeIfAbsent(ticket.host, Host::new);
+                if (host.inFlight >= maxPerHost) {
+                    skipped.add(ticket);
+                    continue;
+                }
+                long wait = host.nanosUntilToken(now);
+                if (wait > 0) {
+                    refillIn = Math.min(refillIn, wait);
+                    skipped.add(ticket);
+                    continue;
+                }
+
+                if (host.ratePerSecond > 0) host.tokens -= 1;
+                host.inFlight++;
+                inFlight++;
+                ticket.granted = true;
+                host.requests.increment();
+                waitTimer.record(now - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+                granted.add(ticket);
+            }
+            queue.addAll(skipped);
+
+            // Only an earlier refill than the one already scheduled needs a timer of its own.
+            if (refillIn != Long.MAX_VALUE && (refillAt == Long.MAX_VALUE || now + refillIn - refillAt < 0)) {
+                refillAt = now + refillIn;
+            } else {
+                refillIn = Long.MAX_VALUE;
+            }
+        }
+
+        if (refillIn != Long.MAX_VALUE) {
+            Schedulers.parallel().schedule(() -> {
+                synchronized (this) {
+                    if (refillAt != Long.MAX_VALUE && refillAt - System.nanoTime() <= 0) refillAt = Long.MAX_VALUE;
+                }
+                internalDrain();
+            }, refillIn, TimeUnit.NANOSECONDS);
+        }
+        granted.forEach(ticket -> ticket.grant.run());
+    }
+}
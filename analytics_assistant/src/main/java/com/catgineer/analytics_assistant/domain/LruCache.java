@@ -0,0 +1,84 @@
+package com.catgineer.analytics_assistant.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size- and TTL-bounded in-memory cache with least-recently-used eviction.
+ * Hits, misses, evictions and the current size are exported as cache.* meters tagged with the cache name.
+ */
+public final class LruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public LruCache(String name, int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache " + name + " needs room for at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(Metrics.globalRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(Metrics.globalRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(Metrics.globalRegistry);
+
+        // Access order turns the map into an LRU list; the eldest entry is dropped once the cap is exceeded.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= LruCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+
+        Gauge.builder("cache.size", this, LruCache::size)
+                .tag("cache", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    public synchronized Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(key);
+            evictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.value());
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized boolean invalidate(K key) {
+        return entries.remove(key) != null;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -1,19 +1,105 @@
 package com.catgineer.analytics_assistant.domain;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import io.vavr.control.Try;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
 import java.util.List; // Added import
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class SafeRunner {
 
+    public static final String DEFAULT_STAGE = "default";
+
+    // Active and queued task counts per stage, exported as the safe_runner.tasks.* gauges.
+    private static final class Stage {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private volatile Semaphore permits; // null means unlimited
+
+        private Stage(String name) {
+            Gauge.builder("safe_runner.tasks.active", active, AtomicInteger::get)
+                    .tag("stage", name)
+                    .register(Metrics.globalRegistry);
+            Gauge.builder("safe_runner.tasks.queued", queued, AtomicInteger::get)
+                    .tag("stage", name)
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
+    private static final Map<String, Stage> stages = new ConcurrentHashMap<>();
+
+    // One virtual thread per task until the application configures its own scheduler.
+    private static volatile Scheduler scheduler = Schedulers.fromExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("safe-runner-vt-", 0).factory()),
+            "safe-runner-vt");
+
     private SafeRunner() {
         // Private constructor to prevent instantiation
     }
 
+    /**
+     * Replaces the scheduler blocking code blocks are subscribed on.
+     */
+    public static void configure(Scheduler blockingScheduler) {
+        scheduler = blockingScheduler;
+    }
+
+    /**
+     * The scheduler blocking code blocks run on, for pipelines that pull from blocking sources themselves.
+     */
+    public static Scheduler blockingScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Caps the number of code blocks of a stage that run at the same time; extra tasks wait in the stage queue.
+     * A limit of zero or less removes the cap.
+     */
+    public static void limitStage(String stageName, int maxConcurrent) {
+        Stage stage = stage(stageName);
+        stage.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+    }
+
+    private static Stage stage(String stageName) {
+        return stages.computeIfAbsent(stageName, Stage::new);
+    }
+
+    // On the virtual-thread scheduler, waiting for a permit parks a virtual thread rather than a platform thread.
+    private static <T> Try<T> safeInStage(String stageName, Callable<T> codeBlock) {
+        Stage stage = stage(stageName);
+        Semaphore permits = stage.permits;
+
+        if (permits != null) {
+            stage.queued.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Try.failure(e);
+            } finally {
+                stage.queued.decrementAndGet();
+            }
+        }
+
+        stage.active.incrementAndGet();
+        try {
+            return safe(codeBlock);
+        } finally {
+            stage.active.decrementAndGet();
+            if (permits != null) permits.release();
+        }
+    }
+
     /**
      * Executes a block of potentially blocking code that can throw an exception and wraps the outcome in a {@link Try}.
      * This is for synchronous, potentially blocking operations that you want to wrap in Vavr's Try.
@@ -28,20 +114,32 @@ public final class SafeRunner {
 
     /**
      * Executes a block of potentially blocking code that produces T, and wraps the outcome in a {@link Mono} of a {@link Try}.
-     * The Callable itself runs on a boundedElastic scheduler to prevent blocking the main reactive threads.
+     * The Callable itself runs on the configured blocking scheduler to prevent blocking the main reactive threads.
      *
      * @param codeBlock The {@link Callable} codeBlock of code to execute, returning T.
      * @param <T>   The return type of the codeBlock.
      * @return A {@link Mono} representing the outcome, emitting a Try<T> on success.
      */
     public static <T> Mono<Try<T>> futureSafe(Callable<T> codeBlock) {
-        return Mono.fromCallable(() -> safe(codeBlock)) // Execute blocking code and wrap in Try, then lift Try into Mono
-                .subscribeOn(Schedulers.boundedElastic()); // Run blocking code on a dedicated scheduler
+        return futureSafe(DEFAULT_STAGE, codeBlock);
+    }
+
+    /**
+     * Same as {@link #futureSafe(Callable)}, but counted against the concurrency limit and metrics of the given stage.
+     *
+     * @param stageName The stage the codeBlock belongs to, e.g. "superset" or "openwebui".
+     * @param codeBlock The {@link Callable} codeBlock of code to execute, returning T.
+     * @param <T>   The return type of the codeBlock.
+     * @return A {@link Mono} representing the outcome, emitting a Try<T> on success.
+     */
+    public static <T> Mono<Try<T>> futureSafe(String stageName, Callable<T> codeBlock) {
+        return Mono.fromCallable(() -> safeInStage(stageName, codeBlock)) // Execute blocking code and wrap in Try, then lift Try into Mono
+                .subscribeOn(scheduler); // Run blocking code on a dedicated scheduler
     }
 
     /**
      * Executes a block of potentially blocking code that produces T, and wraps the outcome in a {@link Flux} of a {@link Try}.
-     * The Callable itself runs on a boundedElastic scheduler to prevent blocking the main reactive threads.
+     * The Callable itself runs on the configured blocking scheduler to prevent blocking the main reactive threads.
      * The single result Try<T> is emitted as a Flux of one item.
      *
      * @param codeBlock The {@link Callable} codeBlock of code to execute, returning T.
@@ -49,23 +147,23 @@ public final class SafeRunner {
      * @return A {@link Flux} representing the outcome, emitting a Try<T> on success as a single item.
      */
     public static <T> Flux<Try<T>> futureStream(Callable<T> codeBlock) {
-        return Mono.fromCallable(() -> safe(codeBlock)) // Execute blocking code and wrap in Try, then lift Try into Mono
-                .subscribeOn(Schedulers.boundedElastic())
+        return Mono.fromCallable(() -> safeInStage(DEFAULT_STAGE, codeBlock)) // Execute blocking code and wrap in Try, then lift Try into Mono
+                .subscribeOn(scheduler)
                 .flux(); // Convert the Mono<Try<T>> to a Flux<Try<T>> emitting one item
     }
 
     /**
      * Executes a block of potentially blocking code that produces a List<T>, and wraps the outcome into a {@link Flux} of {@link Try<T>}.
      * Each item in the list is emitted as a separate {@link Try<T>} in the Flux.
-     * The Callable itself runs on a boundedElastic scheduler.
+     * The Callable itself runs on the configured blocking scheduler.
      *
      * @param codeBlock The {@link Callable} codeBlock of code to execute, returning List<T>.
      * @param <T>   The type of items in the list.
      * @return A {@link Flux} representing the outcome, emitting individual Try<T> for each item in the list on success.
      */
     public static <T> Flux<Try<T>> futureStreamList(Callable<List<T>> codeBlock) {
-        return Mono.fromCallable(() -> safe(codeBlock)) // Execute blocking code and wrap List<T> in Try<List<T>>
-                .subscribeOn(Schedulers.boundedElastic())
+        return Mono.fromCallable(() -> safeInStage(DEFAULT_STAGE, codeBlock)) // Execute blocking code and wrap List<T> in Try<List<T>>
+                .subscribeOn(scheduler)
                 .flatMapMany(tryList -> { // tryList is Try<List<T>>
                     if (tryList.isSuccess()) {
                         return Flux.fromIterable(tryList.get()).map(Try::success); // Emit each item as Try.success
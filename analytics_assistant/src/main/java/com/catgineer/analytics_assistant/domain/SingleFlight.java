@@ -0,0 +1,57 @@
+package com.catgineer.analytics_assistant.domain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key into one execution whose result every caller receives.
+ * A key is only shared while its execution runs; the next call after it finishes starts a new one.
+ * Exported as single_flight.calls (tagged leader or coalesced) and single_flight.in_flight, per name.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    public SingleFlight(String name) {
+        this.leaders = Counter.builder("single_flight.calls").tag("name", name).tag("role", "leader").register(Metrics.globalRegistry);
+        this.coalesced = Counter.builder("single_flight.calls").tag("name", name).tag("role", "coalesced").register(Metrics.globalRegistry);
+        Gauge.builder("single_flight.in_flight", inFlight, Map::size)
+                .tag("name", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Joins the running execution for the key, or starts the work when there is none. The shared
+     * execution keeps running when a caller cancels, so the other callers still get the result.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> work) {
+        return Mono.defer(() -> {
+            AtomicBoolean leader = new AtomicBoolean();
+            Mono<V> shared = inFlight.computeIfAbsent(key, k -> {
+                leader.set(true);
+                return internalShare(k, work);
+            });
+            (leader.get() ? leaders : coalesced).increment();
+            return shared;
+        });
+    }
+
+    private Mono<V> internalShare(K key, Supplier<Mono<V>> work) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = Mono.defer(work)
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,8 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import io.vavr.control.Try;
+
+/**
+ * Outcome of one chart of a batch; index is the chart's position in the submitted batch.
+ */
+public record BatchChartResult(int index, Try<Integer> chartId) {}
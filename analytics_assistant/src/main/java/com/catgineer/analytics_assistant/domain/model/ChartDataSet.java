@@ -1,16 +1,31 @@
 package com.catgineer.analytics_assistant.domain.model;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public record ChartDataSet(
     String id,
     String tableName,
     String sourcePrompt,
-    List<ChartData> dataPoints,
+    ColumnarTable table,
     Instant extractedAt
 ) {
-    public ChartDataSet(String id, String tableName, String sourcePrompt, List<ChartData> dataPoints) {
-        this(id, tableName, sourcePrompt, dataPoints, Instant.now());
+    public ChartDataSet(String id, String tableName, String sourcePrompt, ColumnarTable table) {
+        this(id, tableName, sourcePrompt, table, Instant.now());
+    }
+
+    /**
+     * Materialises the rows as {@link ChartData} maps.
+     * Meant for small results and debugging only; the pipeline reads {@link #table()} directly.
+     */
+    public List<ChartData> dataPoints() {
+        Map<String, String> columnTypes = new HashMap<>();
+        table.schema().forEach(c -> columnTypes.put(c.name(), c.type().sqlName()));
+
+        return table.rows().stream()
+                .map(row -> new ChartData(row.toMap(), new HashMap<>(columnTypes)))
+                .toList();
     }
 }
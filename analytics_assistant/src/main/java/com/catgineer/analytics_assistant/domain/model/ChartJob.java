@@ -0,0 +1,27 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.time.Instant;
+
+/**
+ * A chart generation run in the background. The stage follows the Progress events of the generation;
+ * the chart id is set once it succeeds and the error once it fails.
+ */
+public record ChartJob(
+        String id,
+        String requestHash,
+        Status status,
+        String stage,
+        Integer chartId,
+        String error,
+        Instant createdAt,
+        Instant updatedAt
+) {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED;
+
+        public boolean terminal() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+}
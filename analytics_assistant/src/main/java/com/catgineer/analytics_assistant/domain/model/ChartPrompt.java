@@ -0,0 +1,8 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.util.List;
+
+/**
+ * One chart of a batch: the prompt, the model to answer it and the sources it draws on.
+ */
+public record ChartPrompt(String prompt, String modelName, List<String> sourceUrls) {}
@@ -0,0 +1,24 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.util.List;
+
+/**
+ * Incremental updates emitted while a chart is generated from a streamed completion.
+ */
+public sealed interface ChartStreamEvent {
+
+    // Pipeline stage the request has entered, e.g. "schema", "generation", "visualisation".
+    record Progress(String stage) implements ChartStreamEvent {}
+
+    // Sanitised column names, emitted once the CSV header has been parsed.
+    record Header(List<String> columns) implements ChartStreamEvent {}
+
+    // Rows parsed since the previous update, plus the running total.
+    record Rows(List<List<String>> rows, int totalRows) implements ChartStreamEvent {}
+
+    // The complete data set once the completion has finished.
+    record DataReady(ChartDataSet dataSet) implements ChartStreamEvent {}
+
+    // The chart created from the data set.
+    record ChartReady(Integer chartId) implements ChartStreamEvent {}
+}
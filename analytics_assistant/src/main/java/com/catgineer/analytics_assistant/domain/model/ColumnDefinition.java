@@ -0,0 +1,6 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+public record ColumnDefinition(
+    String name,
+    ColumnType type
+) {}
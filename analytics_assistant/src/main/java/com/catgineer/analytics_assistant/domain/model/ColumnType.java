@@ -0,0 +1,41 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+/**
+ * Postgres column types the pipeline can infer from AI generated values.
+ */
+public enum ColumnType {
+    BOOLEAN,
+    DATE,
+    TIMESTAMP,
+    NUMERIC,
+    TEXT;
+
+    public String sqlName() {
+        return name();
+    }
+
+    /**
+     * Returns the narrowest type able to hold values of both types.
+     * A null argument stands for "no value seen yet" and never widens.
+     */
+    public ColumnType widen(ColumnType other) {
+        if (other == null || other == this) return this;
+        if (isTemporal() && other.isTemporal()) return TIMESTAMP;
+        return TEXT;
+    }
+
+    public boolean isTemporal() {
+        return this == DATE || this == TIMESTAMP;
+    }
+
+    /**
+     * Lenient lookup for type names carried as plain strings (e.g. in {@link ChartData}).
+     */
+    public static ColumnType fromSqlName(String sqlName) {
+        if (sqlName == null) return TEXT;
+        for (ColumnType type : values()) {
+            if (type.name().equalsIgnoreCase(sqlName.trim())) return type;
+        }
+        return TEXT;
+    }
+}
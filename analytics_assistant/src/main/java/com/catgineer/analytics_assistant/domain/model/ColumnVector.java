@@ -0,0 +1,218 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/**
+ * Primitive-specialised storage for a single column of a {@link ColumnarTable}.
+ * Blank cells of typed columns are stored as nulls.
+ */
+public sealed interface ColumnVector permits
+        ColumnVector.LongVector,
+        ColumnVector.DecimalVector,
+        ColumnVector.DateVector,
+        ColumnVector.BooleanVector,
+        ColumnVector.DictionaryVector {
+
+    int size();
+
+    boolean isNull(int row);
+
+    /**
+     * Boxed value for row-oriented consumers: Long, BigDecimal, LocalDate, Boolean or String.
+     */
+    Object get(int row);
+
+    /**
+     * Textual form understood by Postgres for this column's type, or null.
+     */
+    String text(int row);
+
+    final class LongVector implements ColumnVector {
+        private final long[] values;
+        private final BitSet nulls;
+
+        LongVector(long[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        public String text(int row) {
+            return isNull(row) ? null : Long.toString(values[row]);
+        }
+    }
+
+    /**
+     * Exact decimals for NUMERIC columns that do not fit a long; each distinct value is parsed once.
+     * The text keeps the source scale and never uses exponent notation. A code of -1 is null.
+     * Values stay BigDecimal rather than double: the column is written as NUMERIC, and a double would
+     * round amounts past 15-17 significant digits and lose trailing zeros. DecimalColumnBenchmark
+     * measures what that costs against a double[].
+     */
+    final class DecimalVector implements ColumnVector {
+        private final int[] codes;
+        private final BigDecimal[] dictionary;
+
+        DecimalVector(int[] codes, BigDecimal[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public BigDecimal getDecimal(int row) {
+            return dictionary[codes[row]];
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : dictionary[codes[row]];
+        }
+
+        @Override
+        public String text(int row) {
+            return isNull(row) ? null : dictionary[codes[row]].toPlainString();
+        }
+    }
+
+    final class DateVector implements ColumnVector {
+        private final int[] epochDays;
+        private final BitSet nulls;
+
+        DateVector(int[] epochDays, BitSet nulls) {
+            this.epochDays = epochDays;
+            this.nulls = nulls;
+        }
+
+        public int getEpochDay(int row) {
+            return epochDays[row];
+        }
+
+        @Override
+        public int size() {
+            return epochDays.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : LocalDate.ofEpochDay(epochDays[row]);
+        }
+
+        @Override
+        public String text(int row) {
+            return isNull(row) ? null : LocalDate.ofEpochDay(epochDays[row]).toString();
+        }
+    }
+
+    final class BooleanVector implements ColumnVector {
+        private final BitSet values;
+        private final BitSet nulls;
+        private final int size;
+
+        BooleanVector(BitSet values, BitSet nulls, int size) {
+            this.values = values;
+            this.nulls = nulls;
+            this.size = size;
+        }
+
+        public boolean getBoolean(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values.get(row);
+        }
+
+        @Override
+        public String text(int row) {
+            return isNull(row) ? null : Boolean.toString(values.get(row));
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings; each distinct value is stored once.
+     * Used for TEXT and for TIMESTAMP, whose source text is kept as-is. A code of -1 is null.
+     */
+    final class DictionaryVector implements ColumnVector {
+        private final int[] codes;
+        private final String[] dictionary;
+
+        DictionaryVector(int[] codes, String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        public int dictionarySize() {
+            return dictionary.length;
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        @Override
+        public Object get(int row) {
+            return text(row);
+        }
+
+        @Override
+        public String text(int row) {
+            return isNull(row) ? null : dictionary[codes[row]];
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented chart data: one shared schema plus one primitive vector per column.
+ * Row-oriented consumers read it through {@link RowView}s, which are thin cursors over the vectors.
+ */
+public final class ColumnarTable {
+
+    private final List<ColumnDefinition> schema;
+    private final List<ColumnVector> columns;
+    private final int rowCount;
+
+    private ColumnarTable(List<ColumnDefinition> schema, List<ColumnVector> columns, int rowCount) {
+        this.schema = List.copyOf(schema);
+        this.columns = List.copyOf(columns);
+        this.rowCount = rowCount;
+    }
+
+    public static ColumnarTable empty() {
+        return new ColumnarTable(List.of(), List.of(), 0);
+    }
+
+    public static Builder builder(List<String> headers) {
+        return new Builder(headers);
+    }
+
+    public List<ColumnDefinition> schema() {
+        return schema;
+    }
+
+    public int columnCount() {
+        return schema.size();
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    public ColumnVector column(int index) {
+        return columns.get(index);
+    }
+
+    public RowView row(int index) {
+        return new RowView(index);
+    }
+
+    /**
+     * Lazy row-oriented view; no per-row structures are materialised.
+     */
+    public List<RowView> rows() {
+        return new AbstractList<>() {
+            @Override
+            public RowView get(int index) {
+                return new RowView(index);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarTable{schema=" + schema + ", rowCount=" + rowCount + '}';
+    }
+
+    public final class RowView {
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        public int index() {
+            return row;
+        }
+
+        public boolean isNull(int column) {
+            return columns.get(column).isNull(row);
+        }
+
+        public Object get(int column) {
+            return columns.get(column).get(row);
+        }
+
+        public String text(int column) {
+            return columns.get(column).text(row);
+        }
+
+        /**
+         * Copies the row into a map keyed by column name, for callers that need the old shape.
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < schema.size(); i++) {
+                values.put(schema.get(i).name(), get(i));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Accumulates raw cell text as dictionary codes and converts each column to its primitive
+     * vector once the column types are known. Conversion parses every distinct value once, not
+     * every cell. A column whose values turn out not to parse as its type falls back to TEXT.
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final List<String> headers;
+        private final List<Map<String, Integer>> indexes;
+        private final List<List<String>> dictionaries;
+        private final int[][] codes;
+        private int rowCount;
+
+        private Builder(List<String> headers) {
+            this.headers = List.copyOf(headers);
+            this.indexes = new ArrayList<>(headers.size());
+            this.dictionaries = new ArrayList<>(headers.size());
+            this.codes = new int[headers.size()][];
+
+            for (int i = 0; i < headers.size(); i++) {
+                indexes.add(new HashMap<>());
+                dictionaries.add(new ArrayList<>());
+                codes[i] = new int[INITIAL_CAPACITY];
+            }
+        }
+
+        public int rowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Appends one record; missing trailing fields are treated as blank and extra fields are dropped.
+         */
+        public Builder appendRow(List<String> fields) {
+            for (int column = 0; column < codes.length; column++) {
+                if (rowCount == codes[column].length) {
+                    codes[column] = Arrays.copyOf(codes[column], rowCount * 2);
+                }
+                String value = column < fields.size() ? fields.get(column) : "";
+                codes[column][rowCount] = encode(column, value);
+            }
+            rowCount++;
+            return this;
+        }
+
+        private int encode(int column, String value) {
+            Map<String, Integer> index = indexes.get(column);
+            Integer code = index.get(value);
+            if (code == null) {
+                List<String> dictionary = dictionaries.get(column);
+                code = dictionary.size();
+                dictionary.add(value);
+                index.put(value, code);
+            }
+            return code;
+        }
+
+        public ColumnarTable build(List<ColumnType> types) {
+            if (types.size() != headers.size()) {
+                throw new IllegalArgumentException(
+                        "Expected " + headers.size() + " column types but got " + types.size());
+            }
+
+            List<ColumnDefinition> schema = new ArrayList<>(headers.size());
+            List<ColumnVector> vectors = new ArrayList<>(headers.size());
+
+            for (int column = 0; column < headers.size(); column++) {
+                int[] columnCodes = Arrays.copyOf(codes[column], rowCount);
+                String[] dictionary = dictionaries.get(column).toArray(String[]::new);
+                ColumnType type = types.get(column);
+
+                ColumnVector vector;
+                try {
+                    vector = toVector(type, columnCodes, dictionary);
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    type = ColumnType.TEXT;
+                    vector = new ColumnVector.DictionaryVector(columnCodes, dictionary);
+                }
+
+                schema.add(new ColumnDefinition(headers.get(column), type));
+                vectors.add(vector);
+            }
+
+            return new ColumnarTable(schema, vectors, rowCount);
+        }
+
+        private ColumnVector toVector(ColumnType type, int[] columnCodes, String[] dictionary) {
+            return switch (type) {
+                case NUMERIC -> toNumericVector(columnCodes, dictionary);
+                case DATE -> toDateVector(columnCodes, dictionary);
+                case BOOLEAN -> toBooleanVector(columnCodes, dictionary);
+                case TIMESTAMP -> toTimestampVector(columnCodes, dictionary);
+                case TEXT -> new ColumnVector.DictionaryVector(columnCodes, dictionary);
+            };
+        }
+
+        private ColumnVector toNumericVector(int[] columnCodes, String[] dictionary) {
+            boolean integral = true;
+            for (String value : dictionary) {
+                if (!value.isBlank() && !isIntegral(value.strip())) {
+                    integral = false;
+                    break;
+                }
+            }
+
+            if (integral) {
+                BitSet nulls = new BitSet(columnCodes.length);
+                long[] parsed = new long[dictionary.length];
+                for (int i = 0; i < dictionary.length; i++) {
+                    if (!dictionary[i].isBlank()) parsed[i] = Long.parseLong(dictionary[i].strip());
+                }
+                long[] values = new long[columnCodes.length];
+                for (int row = 0; row < columnCodes.length; row++) {
+                    if (dictionary[columnCodes[row]].isBlank()) nulls.set(row);
+                    else values[row] = parsed[columnCodes[row]];
+                }
+                return new ColumnVector.LongVector(values, nulls);
+            }
+
+            // Decimals stay exact: a NUMERIC column holds them without the rounding a double would add.
+            BigDecimal[] parsed = new BigDecimal[dictionary.length];
+            for (int i = 0; i < dictionary.length; i++) {
+                if (!dictionary[i].isBlank()) parsed[i] = new BigDecimal(dictionary[i].strip());
+            }
+            int[] mapped = new int[columnCodes.length];
+            for (int row = 0; row < columnCodes.length; row++) {
+                mapped[row] = parsed[columnCodes[row]] == null ? -1 : columnCodes[row];
+            }
+            return new ColumnVector.DecimalVector(mapped, parsed);
+        }
+
+        private ColumnVector toDateVector(int[] columnCodes, String[] dictionary) {
+            int[] parsed = new int[dictionary.length];
+            for (int i = 0; i < dictionary.length; i++) {
+                if (!dictionary[i].isBlank()) parsed[i] = (int) LocalDate.parse(dictionary[i].strip()).toEpochDay();
+            }
+
+            BitSet nulls = new BitSet(columnCodes.length);
+            int[] epochDays = new int[columnCodes.length];
+            for (int row = 0; row < columnCodes.length; row++) {
+                if (dictionary[columnCodes[row]].isBlank()) nulls.set(row);
+                else epochDays[row] = parsed[columnCodes[row]];
+            }
+            return new ColumnVector.DateVector(epochDays, nulls);
+        }
+
+        private ColumnVector toBooleanVector(int[] columnCodes, String[] dictionary) {
+            BitSet values = new BitSet(columnCodes.length);
+            BitSet nulls = new BitSet(columnCodes.length);
+            for (int row = 0; row < columnCodes.length; row++) {
+                String value = dictionary[columnCodes[row]];
+                if (value.isBlank()) nulls.set(row);
+                else if (Boolean.parseBoolean(value.strip())) values.set(row);
+            }
+            return new ColumnVector.BooleanVector(values, nulls, columnCodes.length);
+        }
+
+        // Timestamps keep their source text, but every distinct value is checked first, so a malformed one
+        // turns the column into TEXT instead of failing the COPY, as a bad date does.
+        private ColumnVector toTimestampVector(int[] columnCodes, String[] dictionary) {
+            for (String value : dictionary) {
+                if (!value.isBlank()) validateTimestamp(value.strip());
+            }
+            return toNullableDictionary(columnCodes, dictionary);
+        }
+
+        private ColumnVector toNullableDictionary(int[] columnCodes, String[] dictionary) {
+            int[] mapped = new int[columnCodes.length];
+            for (int row = 0; row < columnCodes.length; row++) {
+                mapped[row] = dictionary[columnCodes[row]].isBlank() ? -1 : columnCodes[row];
+            }
+            return new ColumnVector.DictionaryVector(mapped, dictionary);
+        }
+
+        /**
+         * Accepts what the scanner types as TIMESTAMP, or a date in a column widened from DATE:
+         * yyyy-MM-dd, optionally followed by [T ]HH:mm:ss, a fraction and a Z or +hh[:mm] offset.
+         * Calendar and clock fields are range-checked.
+         */
+        private static void validateTimestamp(String value) {
+            if (value.length() < 10) throw new DateTimeParseException("Timestamp too short", value, 0);
+            LocalDate.parse(value.substring(0, 10));
+            if (value.length() == 10) return;
+            if (value.length() < 19) throw new DateTimeParseException("Truncated time", value, 10);
+            LocalTime.parse(value.substring(11, 19));
+
+            int i = 19;
+            if (i < value.length() && value.charAt(i) == '.') {
+                int digitsFrom = ++i;
+                while (i < value.length() && isDigit(value.charAt(i))) i++;
+                if (i == digitsFrom) throw new DateTimeParseException("Empty fraction", value, i);
+            }
+            if (i < value.length() && value.charAt(i) == 'Z') {
+                i++;
+            } else if (i < value.length() && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i = expectDigits(value, i + 1, 2);
+                if (i < value.length() && value.charAt(i) == ':') i++;
+                if (i < value.length()) i = expectDigits(value, i, 2);
+            }
+            if (i != value.length()) throw new DateTimeParseException("Unexpected timestamp suffix", value, i);
+        }
+
+        private static int expectDigits(String value, int from, int count) {
+            for (int i = from; i < from + count; i++) {
+                if (i >= value.length() || !isDigit(value.charAt(i))) {
+                    throw new DateTimeParseException("Expected digits in offset", value, i);
+                }
+            }
+            return from + count;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        // Longer digit runs may overflow a long, so they are kept as decimals.
+        private static boolean isIntegral(String value) {
+            int start = value.startsWith("-") ? 1 : 0;
+            if (value.length() == start || value.length() - start > 18) return false;
+            for (int i = start; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+/**
+ * A physical table and the Superset dataset registered on it, leased to one request at a time.
+ */
+public record DatasetSlot(String tableName, Integer datasetId) {}
@@ -0,0 +1,44 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The rel="next" and rel="last" targets of a paginated response; either may be null.
+ */
+public record PageLinks(String next, String last) {
+
+    private static final Pattern PAGE_PARAM = Pattern.compile("([?&]page=)(\\d+)");
+
+    public static PageLinks none() {
+        return new PageLinks(null, null);
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * When pages are addressed by number and the last page is known, the URLs of the following pages
+     * (the page after this one up to maxPages) can be built up front and fetched concurrently.
+     * Cursor-based APIs return an empty list; their pages can only be followed one by one.
+     */
+    public List<String> numberedPagesUpTo(int maxPages) {
+        if (next == null || last == null) return List.of();
+
+        Matcher nextPage = PAGE_PARAM.matcher(next);
+        Matcher lastPage = PAGE_PARAM.matcher(last);
+        if (!nextPage.find() || !lastPage.find()) return List.of();
+
+        int first = Integer.parseInt(nextPage.group(2));
+        int end = Math.min(Integer.parseInt(lastPage.group(2)), maxPages);
+
+        List<String> pages = new ArrayList<>();
+        for (int page = first; page <= end; page++) {
+            pages.add(nextPage.replaceFirst("$1" + page));
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,62 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The payload of a fetched source: held in memory, or spooled to a local file so large
+ * sources are read as a stream instead of living on the heap.
+ */
+public sealed interface SourceBody permits SourceBody.InMemory, SourceBody.Spooled {
+
+    long sizeBytes();
+
+    /**
+     * Opens a new reader over the text; every call starts from the beginning.
+     */
+    Reader open() throws IOException;
+
+    /**
+     * Frees the resources behind the body; it must not be read afterwards.
+     */
+    void release();
+
+    record InMemory(String text) implements SourceBody {
+        @Override
+        public long sizeBytes() {
+            return text.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        @Override
+        public Reader open() {
+            return new StringReader(text);
+        }
+
+        @Override
+        public void release() {
+            // Nothing to free; the text is garbage collected with the record.
+        }
+    }
+
+    // Malformed UTF-8 is replaced rather than failing the read, as with a String body.
+    record Spooled(Path file, long sizeBytes) implements SourceBody {
+        @Override
+        public Reader open() throws IOException {
+            return new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void release() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Best effort; the file lives in the temp directory.
+            }
+        }
+    }
+}
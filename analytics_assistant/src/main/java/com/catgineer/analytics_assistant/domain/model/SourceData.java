@@ -1,6 +1,16 @@
 package com.catgineer.analytics_assistant.domain.model;
 
+import java.util.List;
+
+/**
+ * A fetched source with its HTTP validators and content hash, plus the chunk hashes embedded
+ * for it by the previous ingestion (empty for a new source).
+ */
 public record SourceData(
     String sourceUrl,
-    String content
+    SourceBody body,
+    String etag,
+    String lastModified,
+    String contentHash,
+    List<String> previousChunkHashes
 ) {}
@@ -0,0 +1,12 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+/**
+ * Outcome of a conditional fetch: either the new body with its validators and content hash,
+ * or confirmation that the content is unchanged since the validators that were sent.
+ */
+public sealed interface SourceFetchResult permits SourceFetchResult.Modified, SourceFetchResult.NotModified {
+
+    record Modified(SourceBody body, String contentHash, String etag, String lastModified) implements SourceFetchResult {}
+
+    record NotModified() implements SourceFetchResult {}
+}
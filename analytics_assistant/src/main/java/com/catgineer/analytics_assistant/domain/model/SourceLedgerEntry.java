@@ -0,0 +1,14 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.util.List;
+
+/**
+ * What the last successful ingestion of a source saw and embedded.
+ */
+public record SourceLedgerEntry(
+    String sourceUrl,
+    String etag,
+    String lastModified,
+    String contentHash,
+    List<String> chunkHashes
+) {}
@@ -0,0 +1,6 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+/**
+ * One page of a source, with the links to the pages around it.
+ */
+public record SourcePage<T>(String url, T content, PageLinks links) {}
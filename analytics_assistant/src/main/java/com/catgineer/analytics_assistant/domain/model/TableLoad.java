@@ -0,0 +1,8 @@
+package com.catgineer.analytics_assistant.domain.model;
+
+import java.util.List;
+
+/**
+ * The rows to load into one physical table, with the column types to create it with.
+ */
+public record TableLoad(String tableName, List<ColumnDefinition> schema, List<ColumnarTable.RowView> rows) {}
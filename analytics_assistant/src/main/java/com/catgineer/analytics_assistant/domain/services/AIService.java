@@ -1,11 +1,13 @@
 package com.catgineer.analytics_assistant.domain.services;
 
-import com.catgineer.analytics_assistant.domain.SafeRunner;
 import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
 import com.catgineer.analytics_assistant.infrastructure.ports.AIProvider;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import static io.vavr.API.*;
@@ -13,119 +15,279 @@ import static io.vavr.Patterns.$Failure;
 import static io.vavr.Patterns.$Success;
 
 import java.util.List;
+import java.util.Set;
 
 public class AIService {
 
     private static final Logger logger = LoggerFactory.getLogger(AIService.class);
     private final AIProvider aiProvider;
+    private final SchemaCache schemaCache;
+    private final Set<String> singlePassModels;
 
-    public AIService(AIProvider aiProvider) {
+    /**
+     * How the CSV generation prompt is obtained for a model.
+     * TWO_STAGE infers the column schema in a separate round-trip first; SINGLE_PASS lets models that
+     * reliably follow a structured output format choose the header and the rows in one completion.
+     */
+    private enum GenerationPlan { TWO_STAGE, SINGLE_PASS }
+
+    public AIService(AIProvider aiProvider, SchemaCache schemaCache, Set<String> singlePassModels) {
         this.aiProvider = aiProvider;
+        this.schemaCache = schemaCache;
+        this.singlePassModels = Set.copyOf(singlePassModels);
+    }
+
+    private GenerationPlan internalPlan(String modelName) {
+        return singlePassModels.contains(modelName) ? GenerationPlan.SINGLE_PASS : GenerationPlan.TWO_STAGE;
     }
 
-    private String internalInferSchema(String prompt, String modelName) throws Exception {
+    private Mono<Try<String>> internalInferSchema(String prompt, String modelName) {
         String schemaPrompt = String.format(
                 "Please provide a schema for a csv based on this: %s. Output ONLY the comma-separated column names.", 
                 prompt
         );
         
         logger.info("[STEP 1 - PROMPT]: {}", schemaPrompt);
-        
-        Try<String> schemaResponse = aiProvider.sendPromptToAI(modelName, schemaPrompt, List.of())
-                .toFuture().get();
-        
-        String schema = schemaResponse.getOrElseThrow(() -> 
-                new RuntimeException("Failed to infer schema from AI"));
 
-        logger.info("[STEP 1 - RESPONSE]: {}", schema);
-        return schema;
+        return aiProvider.sendPromptToAI(modelName, schemaPrompt, List.of())
+                .map(schemaResponse -> Match(schemaResponse).<Try<String>>of(
+                        Case($Success($()), schema -> {
+                            logger.info("[STEP 1 - RESPONSE]: {}", schema);
+                            return Try.success(schema);
+                        }),
+                        Case($Failure($()), ex -> Try.<String>failure(
+                                new RuntimeException("Failed to infer schema from AI", ex)))
+                ));
     }
 
-    private ChartDataSet internalGenerateChartData(String prompt, String modelName) throws Exception {
-        logger.info("Starting deterministic AI generation sequence with model: {}", modelName);
-
-        // Step 1: Infer Schema
-        String schema = internalInferSchema(prompt, modelName);
-        logger.info("Crystallized Schema: {}", schema);
-
-        Try<Boolean> validation = aiProvider.validatePrompt(prompt).toFuture().get();
-        if (validation.isFailure() || !validation.get()) {
-            logger.warn("Prompt validation rejected: {}", prompt);
-            throw new IllegalArgumentException("Prompt validation failed");
-        }
-
-        // Step 2: Build Structured Prompt with inferred schema
-        String structuredPrompt = String.format("""
+    private String internalBuildStructuredPrompt(String prompt, String schema) {
+        return String.format("""
                 TASK: %s
                 FORMAT: Output ONLY raw CSV.
                 COLUMNS: %s
                 NEGATIVE CONSTRAINT: No prose, no markdown code blocks.
                 If no data matches, return ONLY the header: %s
                 """, prompt, schema, schema);
+    }
 
+    private String internalBuildSinglePassPrompt(String prompt) {
+        return String.format("""
+                TASK: %s
+                FORMAT: Output ONLY raw CSV.
+                HEADER: The first line is the header, made of the comma-separated column names that best fit the task.
+                NEGATIVE CONSTRAINT: No prose, no markdown code blocks.
+                If no data matches, return ONLY the header.
+                """, prompt);
+    }
+
+    /**
+     * Resolves the prompt that produces the CSV data, following the model's generation plan.
+     * A single-pass plan needs no round-trip; a two-stage plan infers the schema first.
+     */
+    private Mono<Try<String>> internalResolveGenerationPrompt(String prompt, String modelName) {
+        return switch (internalPlan(modelName)) {
+            case SINGLE_PASS -> {
+                logger.info("Model {} supports structured output, skipping schema inference", modelName);
+                yield Mono.just(Try.success(internalBuildSinglePassPrompt(prompt)));
+            }
+            case TWO_STAGE -> internalResolveSchema(prompt, modelName)
+                    .map(schemaResult -> schemaResult.map(schema -> internalBuildStructuredPrompt(prompt, schema)));
+        };
+    }
+
+    // Prompts of an already seen template reuse its schema instead of paying for the inference round-trip.
+    private Mono<Try<String>> internalResolveSchema(String prompt, String modelName) {
+        return schemaCache.get(prompt)
+                .map(schema -> {
+                    logger.info("Schema cache hit: {}", schema);
+                    return Mono.just(Try.success(schema));
+                })
+                .orElseGet(() -> internalInferSchema(prompt, modelName)
+                        .map(schemaResult -> schemaResult.peek(schema -> {
+                            logger.info("Crystallized Schema: {}", schema);
+                            schemaCache.put(prompt, schema);
+                        })));
+    }
+
+    private Mono<Try<Boolean>> internalValidatePrompt(String prompt) {
+        return aiProvider.validatePrompt(prompt)
+                .map(validation -> Match(validation).<Try<Boolean>>of(
+                        Case($Success($(true)), ok -> Try.success(true)),
+                        Case($Success($()), rejected -> {
+                            logger.warn("Prompt validation rejected: {}", prompt);
+                            return Try.<Boolean>failure(new IllegalArgumentException("Prompt validation failed"));
+                        }),
+                        Case($Failure($()), ex -> Try.<Boolean>failure(
+                                new IllegalArgumentException("Prompt validation failed", ex)))
+                ));
+    }
+
+    private Mono<Try<String>> internalRequestCsv(String structuredPrompt, String modelName) {
         logger.info("[STEP 2 - PROMPT]: {}", structuredPrompt);
-        
-        Try<String> aiResponse = aiProvider.sendPromptToAI(modelName, structuredPrompt, List.of())
-                .toFuture().get();
-        
-        String csvContent = aiResponse.getOrElseThrow(() -> 
-                new RuntimeException("AI provider returned no content"));
 
-        logger.info("[STEP 2 - RESPONSE]: {}", csvContent);
+        return aiProvider.sendPromptToAI(modelName, structuredPrompt, List.of())
+                .map(aiResponse -> Match(aiResponse).<Try<String>>of(
+                        Case($Success($()), csvContent -> {
+                            logger.info("[STEP 2 - RESPONSE]: {}", csvContent);
+                            return Try.success(csvContent);
+                        }),
+                        Case($Failure($()), ex -> Try.<String>failure(
+                                new RuntimeException("AI provider returned no content", ex)))
+                ));
+    }
 
-        logger.info("Validating AI response structure");
-        Try<Boolean> responseValidation = aiProvider.validateAIResponse(csvContent).toFuture().get();
-        
-        if (responseValidation.isFailure() || !responseValidation.get()) {
-            logger.error("AI response failed structural validation for content: [{}]", csvContent);
-            throw new IllegalStateException("Malformed AI response");
-        }
-
-        logger.info("Extracting ChartDataSet from CSV content");
-        Try<ChartDataSet> extractionResult = aiProvider.extractChartDataSet(prompt, csvContent)
-                .toFuture().get();
-        
-        return extractionResult.getOrElseThrow(() -> {
-            logger.error("Failed to map AI response to ChartDataSet. Content was: {}", csvContent);
-            return new RuntimeException("Data extraction failed");
-        });
+    /**
+     * Structural validation runs first, so a rejected response is never parsed into a data set.
+     */
+    private Mono<Try<ChartDataSet>> internalValidateAndExtract(String prompt, String csvContent) {
+        logger.info("Validating AI response structure and extracting ChartDataSet from CSV content");
+        return aiProvider.validateAIResponse(csvContent)
+                .flatMap(validation -> Match(validation).<Mono<Try<ChartDataSet>>>of(
+                        Case($Success($(true)), ok -> aiProvider.extractChartDataSet(prompt, csvContent)
+                                .map(extraction -> Match(extraction).<Try<ChartDataSet>>of(
+                                        Case($Success($()), Try::success),
+                                        Case($Failure($()), ex -> {
+                                            logger.error("Failed to map AI response to ChartDataSet. Content was: {}", csvContent);
+                                            return Try.<ChartDataSet>failure(new RuntimeException("Data extraction failed", ex));
+                                        })
+                                ))),
+                        Case($(), invalid -> {
+                            logger.error("AI response failed structural validation for content: [{}]", csvContent);
+                            return Mono.just(Try.<ChartDataSet>failure(new IllegalStateException("Malformed AI response")));
+                        })
+                ));
+    }
+
+    /**
+     * Staged generation plan: the prompt is validated first so a rejected prompt never pays for a
+     * model call, then the generation prompt is resolved (one or two round-trips depending on the
+     * model) and the CSV is validated, then extracted.
+     */
+    private Mono<Try<ChartDataSet>> internalGenerateChartData(String prompt, String modelName) {
+        logger.info("Starting deterministic AI generation sequence with model: {} ({})", modelName, internalPlan(modelName));
+
+        return internalValidatePrompt(prompt)
+                .flatMap(validation -> Match(validation).<Mono<Try<ChartDataSet>>>of(
+                        Case($Success($()), ok -> internalResolveGenerationPrompt(prompt, modelName)
+                                .flatMap(promptResult -> Match(promptResult).<Mono<Try<String>>>of(
+                                        Case($Success($()), structuredPrompt -> internalRequestCsv(structuredPrompt, modelName)),
+                                        Case($Failure($()), ex -> Mono.just(Try.<String>failure(ex)))
+                                ))
+                                .flatMap(csvResult -> Match(csvResult).<Mono<Try<ChartDataSet>>>of(
+                                        Case($Success($()), csvContent -> internalValidateAndExtract(prompt, csvContent)),
+                                        Case($Failure($()), ex -> Mono.just(Try.<ChartDataSet>failure(ex)))
+                                ))),
+                        Case($Failure($()), ex -> Mono.just(Try.<ChartDataSet>failure(ex)))
+                ));
+    }
+
+    /**
+     * Streams the CSV generation step: the generation prompt is resolved as in the blocking flow,
+     * then the data completion is consumed token by token and parsed incrementally by the provider.
+     * The complete response goes through the same structural validation as in the blocking flow
+     * before its data set is released.
+     */
+    private Flux<Try<ChartStreamEvent>> internalStreamGeneration(String prompt, String modelName) {
+        Flux<Try<ChartStreamEvent>> planning = internalPlan(modelName) == GenerationPlan.TWO_STAGE
+                ? Flux.just(Try.<ChartStreamEvent>success(new ChartStreamEvent.Progress("schema")))
+                : Flux.empty();
+
+        return Flux.concat(planning, internalResolveGenerationPrompt(prompt, modelName)
+                .flatMapMany(promptResult -> Match(promptResult).<Flux<Try<ChartStreamEvent>>>of(
+                        Case($Success($()), structuredPrompt -> {
+                            StringBuilder response = new StringBuilder();
+                            Flux<String> deltas = aiProvider.streamPromptToAI(modelName, structuredPrompt, List.of())
+                                    .<String>handle((delta, sink) -> {
+                                        if (delta.isSuccess()) sink.next(delta.get());
+                                        else sink.error(delta.getCause());
+                                    })
+                                    .doOnNext(response::append);
+
+                            return Flux.concat(
+                                    Flux.just(Try.<ChartStreamEvent>success(new ChartStreamEvent.Progress("generation"))),
+                                    aiProvider.extractChartDataSetIncrementally(prompt, deltas)
+                                            .concatMap(update -> internalValidateStreamed(update, response))
+                            );
+                        }),
+                        Case($Failure($()), ex -> Flux.just(Try.<ChartStreamEvent>failure(ex)))
+                )));
     }
 
-    private Boolean internalAuthenticate(String username, String password) throws Exception {
-        logger.info("Executing synchronous authentication for: {}", username);
+    // Holds back the data set of a streamed response until the whole response has passed validation.
+    private Mono<Try<ChartStreamEvent>> internalValidateStreamed(Try<ChartStreamEvent> update, CharSequence response) {
+        if (update.isFailure() || !(update.get() instanceof ChartStreamEvent.DataReady)) return Mono.just(update);
+
+        String csvContent = response.toString();
+        return aiProvider.validateAIResponse(csvContent)
+                .map(validation -> Match(validation).<Try<ChartStreamEvent>>of(
+                        Case($Success($(true)), ok -> update),
+                        Case($(), invalid -> {
+                            logger.error("Streamed AI response failed structural validation for content: [{}]", csvContent);
+                            return Try.<ChartStreamEvent>failure(new IllegalStateException("Malformed AI response"));
+                        })
+                ));
+    }
+
+    private Mono<Try<Boolean>> internalAuthenticate(String username, String password) {
+        logger.info("Executing authentication for: {}", username);
         return aiProvider.authenticate(username, password)
-                .toFuture()
-                .get()
-                .getOrElseThrow(() -> new RuntimeException("Authentication provider unreachable"));
+                .map(result -> Match(result).<Try<Boolean>>of(
+                        Case($Success($()), Try::success),
+                        Case($Failure($()), ex -> Try.<Boolean>failure(
+                                new RuntimeException("Authentication provider unreachable", ex)))
+                ));
     }
 
-    private Boolean internalEmbedData(String data) throws Exception {
+    private Mono<Try<Boolean>> internalEmbedData(String data) {
         logger.info("Initiating data embedding into knowledge base");
-        Try<Boolean> result = aiProvider.embedData(data).toFuture().get();
-        
-        return Match(result).of(
-            Case($Success($(true)), () -> {
-                logger.info("Data embedded successfully.");
-                return true;
-            }),
-            Case($Failure($()), () -> { 
-                throw new RuntimeException("Embedding process failed"); 
-            })
-        );
+        return aiProvider.embedData(data)
+                .map(result -> Match(result).<Try<Boolean>>of(
+                        Case($Success($(true)), ok -> {
+                            logger.info("Data embedded successfully.");
+                            return Try.success(true);
+                        }),
+                        Case($(), failed -> Try.<Boolean>failure(new RuntimeException("Embedding process failed")))
+                ));
     }
 
     public Mono<Try<ChartDataSet>> generateChartData(String prompt, String modelName) {
         logger.info("Public Entry: Orchestrating chart data generation for prompt: {}", prompt);
-        return SafeRunner.futureSafe(() -> internalGenerateChartData(prompt, modelName));
+        return internalGenerateChartData(prompt, modelName);
+    }
+
+    public Flux<Try<ChartStreamEvent>> streamChartData(String prompt, String modelName) {
+        logger.info("Public Entry: Orchestrating streamed chart data generation for prompt: {}", prompt);
+        return aiProvider.validatePrompt(prompt)
+                .flatMapMany(validation -> Match(validation).<Flux<Try<ChartStreamEvent>>>of(
+                        Case($Success($(true)), ok -> internalStreamGeneration(prompt, modelName)),
+                        Case($Success($()), rejected -> {
+                            logger.warn("Prompt validation rejected: {}", prompt);
+                            return Flux.just(Try.<ChartStreamEvent>failure(new IllegalArgumentException("Prompt validation failed")));
+                        }),
+                        Case($Failure($()), ex -> Flux.just(Try.<ChartStreamEvent>failure(ex)))
+                ));
     }
 
     public Mono<Try<Boolean>> authenticate(String username, String password) {
         logger.info("Public Entry: Initiating authentication for user: {}", username);
-        return SafeRunner.futureSafe(() -> internalAuthenticate(username, password));
+        return internalAuthenticate(username, password);
     }
 
     public Mono<Try<Boolean>> embedData(String data) {
         logger.info("Public Entry: Embedding content");
-        return SafeRunner.futureSafe(() -> internalEmbedData(data));
+        return internalEmbedData(data);
+    }
+
+    /**
+     * Embeds the source over the chunks embedded for it before, given in order; yields the hashes of all
+     * chunks of the content.
+     */
+    public Mono<Try<List<String>>> embedChangedChunks(String sourceUrl, SourceBody data, List<String> previousChunkHashes) {
+        logger.info("Public Entry: Embedding changed chunks of {} ({} embedded before)", sourceUrl, previousChunkHashes.size());
+        return aiProvider.embedChangedChunks(sourceUrl, data, previousChunkHashes)
+                .map(result -> Match(result).<Try<List<String>>>of(
+                        Case($Success($()), Try::success),
+                        Case($Failure($()), ex -> Try.<List<String>>failure(new RuntimeException("Embedding process failed", ex)))
+                ));
     }
 }
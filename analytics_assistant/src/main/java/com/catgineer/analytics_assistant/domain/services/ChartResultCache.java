@@ -0,0 +1,182 @@
+package com.catgineer.analytics_assistant.domain.services;
+
+import com.catgineer.analytics_assistant.domain.ContentHash;
+import com.catgineer.analytics_assistant.domain.LruCache;
+import com.catgineer.analytics_assistant.domain.SingleFlight;
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.SourceLedgerEntry;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartResultStore;
+import com.catgineer.analytics_assistant.infrastructure.ports.IngestionLedger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static io.vavr.API.*;
+import static io.vavr.Patterns.$Failure;
+import static io.vavr.Patterns.$Success;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier cache for generated chart data, keyed on the normalised prompt, the model and the source fingerprint.
+ * The fingerprint includes the content hash the ingestion ledger holds for each source, so re-ingesting a changed
+ * source moves requests over it to a new key and the stale entries age out.
+ * The in-memory tier is checked first; the optional Postgres tier survives restarts and refills memory on a hit.
+ * A failing persistent tier degrades to a miss, so caching never fails a generation.
+ * Concurrent requests for the same key share one lookup and generation, whether they come from separate
+ * chart requests or from the same batch.
+ */
+public class ChartResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartResultCache.class);
+    private static final String CACHE_NAME = "chart_results";
+    private static final String STORE_CACHE_NAME = "chart_results_store";
+
+    private final LruCache<String, ChartDataSet> memory;
+    private final ChartResultStore store;
+    private final IngestionLedger ingestionLedger;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final Counter storeHits;
+    private final Counter storeMisses;
+    private final SingleFlight<String, Try<ChartDataSet>> generations = new SingleFlight<>("chart_data");
+
+    public ChartResultCache(ChartResultStore store, IngestionLedger ingestionLedger, int maxEntries, Duration ttl, boolean persistent) {
+        this.memory = new LruCache<>(CACHE_NAME, maxEntries, ttl);
+        this.store = store;
+        this.ingestionLedger = ingestionLedger;
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.storeHits = Counter.builder("cache.gets").tag("cache", STORE_CACHE_NAME).tag("result", "hit").register(Metrics.globalRegistry);
+        this.storeMisses = Counter.builder("cache.gets").tag("cache", STORE_CACHE_NAME).tag("result", "miss").register(Metrics.globalRegistry);
+    }
+
+    // Case and whitespace differences, and trailing punctuation, do not change what a prompt asks for.
+    private static String internalNormalisePrompt(String prompt) {
+        String collapsed = prompt.strip().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        int end = collapsed.length();
+        while (end > 0 && ".?!".indexOf(collapsed.charAt(end - 1)) >= 0) end--;
+        return collapsed.substring(0, end);
+    }
+
+    private static List<String> internalSortedSources(List<String> sourceUrls) {
+        if (sourceUrls == null) return List.of();
+        return sourceUrls.stream().map(String::strip).sorted().distinct().toList();
+    }
+
+    private static String internalFingerprintSources(List<String> sourceUrls) {
+        return String.join("\n", internalSortedSources(sourceUrls));
+    }
+
+    // A source that has never been ingested contributes an empty hash until it is.
+    private Mono<Optional<String>> internalFingerprintContent(List<String> sourceUrls) {
+        return Flux.fromIterable(internalSortedSources(sourceUrls))
+                .flatMapSequential(ingestionLedger::find)
+                .collectList()
+                .map(found -> {
+                    Optional<Throwable> failure = found.stream().filter(Try::isFailure).map(Try::getCause).findFirst();
+                    if (failure.isPresent()) {
+                        logger.warn("Ingestion ledger lookup failed, bypassing the chart cache: {}", failure.get().getMessage());
+                        return Optional.empty();
+                    }
+                    return Optional.of(found.stream()
+                            .map(entry -> entry.get().map(SourceLedgerEntry::contentHash).orElse(""))
+                            .collect(Collectors.joining("\n")));
+                });
+    }
+
+    private Mono<Optional<ChartDataSet>> internalLookupPersistent(String key) {
+        if (!persistent) return Mono.just(Optional.empty());
+
+        return store.load(key, ttl)
+                .map(loadResult -> Match(loadResult).<Optional<ChartDataSet>>of(
+                        Case($Success($()), found -> {
+                            (found.isPresent() ? storeHits : storeMisses).increment();
+                            found.ifPresent(dataSet -> memory.put(key, dataSet));
+                            return found;
+                        }),
+                        Case($Failure($()), ex -> {
+                            logger.warn("Persistent chart cache lookup failed, treating as miss: {}", ex.getMessage());
+                            storeMisses.increment();
+                            return Optional.empty();
+                        })
+                ));
+    }
+
+    private Mono<Try<ChartDataSet>> internalStore(String key, ChartDataSet dataSet) {
+        memory.put(key, dataSet);
+        if (!persistent) return Mono.just(Try.success(dataSet));
+
+        return store.save(key, dataSet)
+                .map(saveResult -> {
+                    saveResult.onFailure(ex -> logger.warn("Persistent chart cache write failed: {}", ex.getMessage()));
+                    return Try.success(dataSet);
+                });
+    }
+
+    /**
+     * Identifies the request: the same prompt, model and sources give the same key, whatever the sources contain.
+     */
+    public String keyFor(String prompt, String modelName, List<String> sourceUrls) {
+        return ContentHash.sha256(internalNormalisePrompt(prompt) + "\u0000" + modelName + "\u0000" + internalFingerprintSources(sourceUrls));
+    }
+
+    /**
+     * The key the request's result is cached under: the request key plus the sources' ingested content.
+     * Empty when the ledger cannot be read; the result is then neither looked up nor stored.
+     */
+    public Mono<Optional<String>> resolveKey(String prompt, String modelName, List<String> sourceUrls) {
+        String requestKey = keyFor(prompt, modelName, sourceUrls);
+        return internalFingerprintContent(sourceUrls)
+                .map(content -> content.map(hashes -> ContentHash.sha256(requestKey + "\u0000" + hashes)));
+    }
+
+    public Mono<Optional<ChartDataSet>> lookup(String key) {
+        Optional<ChartDataSet> cached = memory.get(key);
+        if (cached.isPresent()) {
+            logger.info("Chart result cache hit (memory) for {}", key);
+            return Mono.just(cached);
+        }
+        return internalLookupPersistent(key);
+    }
+
+    public Mono<Try<ChartDataSet>> store(String key, ChartDataSet dataSet) {
+        return internalStore(key, dataSet);
+    }
+
+    /**
+     * Returns the cached data set for the request, or runs the generator and caches a successful result.
+     * A call that arrives while the same request is being generated receives that generation's result.
+     */
+    public Mono<Try<ChartDataSet>> getOrGenerate(String prompt, String modelName, List<String> sourceUrls,
+                                                 Supplier<Mono<Try<ChartDataSet>>> generator) {
+        return generations.execute(keyFor(prompt, modelName, sourceUrls), () -> resolveKey(prompt, modelName, sourceUrls)
+                .flatMap(key -> key
+                        .map(resolved -> internalLookupOrGenerate(resolved, generator))
+                        .orElseGet(generator)));
+    }
+
+    private Mono<Try<ChartDataSet>> internalLookupOrGenerate(String key, Supplier<Mono<Try<ChartDataSet>>> generator) {
+        return lookup(key)
+                .flatMap(cached -> cached
+                        .map(dataSet -> Mono.just(Try.<ChartDataSet>success(dataSet)))
+                        .orElseGet(() -> generator.get()
+                                .flatMap(generated -> Match(generated).<Mono<Try<ChartDataSet>>>of(
+                                        Case($Success($()), dataSet -> internalStore(key, dataSet)),
+                                        Case($Failure($()), ex -> Mono.just(Try.<ChartDataSet>failure(ex)))
+                                ))));
+    }
+
+    public void invalidateAll() {
+        memory.invalidateAll();
+    }
+}
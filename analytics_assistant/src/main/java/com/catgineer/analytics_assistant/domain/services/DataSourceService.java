@@ -1,51 +1,149 @@
 package com.catgineer.analytics_assistant.domain.services;
 
-import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.FetchScheduler;
+import com.catgineer.analytics_assistant.domain.model.PageLinks;
 import com.catgineer.analytics_assistant.domain.model.SourceData;
+import com.catgineer.analytics_assistant.domain.model.SourceFetchResult;
+import com.catgineer.analytics_assistant.domain.model.SourceLedgerEntry;
 import com.catgineer.analytics_assistant.infrastructure.ports.DataSourceProvider;
+import com.catgineer.analytics_assistant.infrastructure.ports.IngestionLedger;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import static io.vavr.API.*;
 import static io.vavr.Patterns.$Failure;
 import static io.vavr.Patterns.$Success;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 
 public class DataSourceService {
 
     private static final Logger logger = LoggerFactory.getLogger(DataSourceService.class);
     private final DataSourceProvider dataSourceProvider;
+    private final IngestionLedger ingestionLedger;
+    private final FetchScheduler fetchScheduler;
+    private final int maxPages;
+    private final int pageConcurrency;
 
-    public DataSourceService(DataSourceProvider dataSourceProvider) {
-        this.dataSourceProvider = dataSourceProvider;
-    }
+    // Items of one fetched page, with the links to the pages after it.
+    private record PageOutcome(Flux<Try<SourceData>> items, PageLinks links) {}
 
-    private SourceData internalMapToSourceData(String url, String content) {
-        logger.debug("Mapping raw content to SourceData for URL: {}", url);
-        return new SourceData(url, content);
+    public DataSourceService(DataSourceProvider dataSourceProvider, IngestionLedger ingestionLedger,
+                             FetchScheduler fetchScheduler, int maxPages, int pageConcurrency) {
+        this.dataSourceProvider = dataSourceProvider;
+        this.ingestionLedger = ingestionLedger;
+        this.fetchScheduler = fetchScheduler;
+        this.maxPages = maxPages;
+        this.pageConcurrency = pageConcurrency;
     }
 
-    public Flux<Try<SourceData>> fetchSource(String url) {
-        logger.info("Initiating monadic fetch for URL: {}", url);
-        
-        return dataSourceProvider.fetchFrom(url)
-            .flatMapMany(res -> Match(res).<Flux<Try<SourceData>>>of(
-                Case($Success($()), content -> 
-                    SafeRunner.futureStream(() -> internalMapToSourceData(url, content))
-                ),
+    // A ledger that cannot be read only costs a full refetch, so it never fails the fetch.
+    private Mono<Optional<SourceLedgerEntry>> internalFindLedgerEntry(String url) {
+        return ingestionLedger.find(url)
+            .map(found -> Match(found).<Optional<SourceLedgerEntry>>of(
+                Case($Success($()), entry -> entry),
                 Case($Failure($()), ex -> {
-                    logger.error("Provider failed to fetch from {}: {}", url, ex.getMessage());
-                    return Flux.just(Try.failure(ex));
+                    logger.warn("Ingestion ledger lookup failed for {}, fetching unconditionally: {}", url, ex.getMessage());
+                    return Optional.empty();
                 })
             ));
     }
 
-    public Flux<Try<SourceData>> fetchMultipleSources(List<String> urls) {
-        logger.info("Orchestrating batch fetch for {} URLs", urls.size());
+    /**
+     * Fetches a page with the validators of its previous ingestion. A 304, or a body whose hash matches the
+     * previous content, emits nothing; the latter still refreshes the stored validators. A 304 without
+     * Link headers ends the walk over the following pages.
+     */
+    private Mono<PageOutcome> internalFetchPageIfChanged(String url, int priority) {
+        return internalFindLedgerEntry(url).flatMap(previous -> {
+            String etag = previous.map(SourceLedgerEntry::etag).orElse(null);
+            String lastModified = previous.map(SourceLedgerEntry::lastModified).orElse(null);
+
+            return fetchScheduler.schedule(url, priority, () -> dataSourceProvider.fetchPageIfChanged(url, etag, lastModified))
+                .map(res -> Match(res).<PageOutcome>of(
+                    Case($Success($()), page -> new PageOutcome(internalChangedItems(url, page.content(), previous), page.links())),
+                    Case($Failure($()), ex -> {
+                        logger.error("Provider failed to fetch from {}: {}", url, ex.getMessage());
+                        return new PageOutcome(Flux.just(Try.<SourceData>failure(ex)), PageLinks.none());
+                    })
+                ));
+        });
+    }
+
+    private Flux<Try<SourceData>> internalChangedItems(String url, SourceFetchResult result, Optional<SourceLedgerEntry> previous) {
+        return switch (result) {
+            case SourceFetchResult.NotModified notModified -> {
+                logger.info("Source unchanged since last ingestion (304): {}", url);
+                yield Flux.<Try<SourceData>>empty();
+            }
+            case SourceFetchResult.Modified modified -> internalDetectChange(url, modified, previous);
+        };
+    }
+
+    private Flux<Try<SourceData>> internalDetectChange(String url, SourceFetchResult.Modified modified, Optional<SourceLedgerEntry> previous) {
+        String contentHash = modified.contentHash();
+        List<String> previousChunks = previous.map(SourceLedgerEntry::chunkHashes).orElse(List.of());
+
+        if (previous.isPresent() && contentHash.equals(previous.get().contentHash())) {
+            logger.info("Source content unchanged (hash match): {}", url);
+            modified.body().release();
+            return ingestionLedger.record(new SourceLedgerEntry(url, modified.etag(), modified.lastModified(), contentHash, previousChunks))
+                .thenMany(Flux.<Try<SourceData>>empty());
+        }
+
+        return Flux.just(Try.success(new SourceData(
+            url, modified.body(), modified.etag(), modified.lastModified(), contentHash, previousChunks)));
+    }
+
+    /**
+     * Emits the items of a source's first page, then of the pages it links to. When the response names
+     * its numbered last page, the following pages are fetched concurrently and emitted in page order;
+     * otherwise rel="next" is followed page by page. Either way at most maxPages pages are read.
+     */
+    private Flux<Try<SourceData>> internalPaginate(String url, Function<String, Mono<PageOutcome>> fetchPage) {
+        return fetchPage.apply(url).flatMapMany(first -> {
+            List<String> numbered = first.links().numberedPagesUpTo(maxPages);
+            Flux<Try<SourceData>> following = numbered.isEmpty()
+                ? internalFollowNext(url, first.links(), fetchPage, 2)
+                : Flux.fromIterable(numbered)
+                    .flatMapSequential(page -> fetchPage.apply(page).flatMapMany(PageOutcome::items), pageConcurrency);
+            return Flux.concat(first.items(), following);
+        });
+    }
+
+    private Flux<Try<SourceData>> internalFollowNext(String url, PageLinks links, Function<String, Mono<PageOutcome>> fetchPage, int page) {
+        if (!links.hasNext()) return Flux.empty();
+        if (page > maxPages) {
+            logger.warn("Stopping pagination of {} after {} pages", url, maxPages);
+            return Flux.empty();
+        }
+        return fetchPage.apply(links.next())
+            .flatMapMany(outcome -> Flux.concat(outcome.items(), internalFollowNext(url, outcome.links(), fetchPage, page + 1)));
+    }
+
+    /**
+     * Fetches every source, following pagination links, and emits only the pages that are new or changed since
+     * their last recorded ingestion, each as its own SourceData. Requests go through the fetch scheduler, with
+     * the sources' list order as their priority.
+     */
+    public Flux<Try<SourceData>> fetchChangedSources(List<String> urls) {
+        logger.info("Orchestrating incremental fetch for {} URLs", urls.size());
         return Flux.fromIterable(urls)
-            .flatMap(this::fetchSource);
+            .index()
+            .flatMap(source -> internalPaginate(source.getT2(),
+                page -> internalFetchPageIfChanged(page, source.getT1().intValue())));
+    }
+
+    /**
+     * Stores what was ingested for a source, so the next run can skip it or its unchanged chunks.
+     */
+    public Mono<Try<Boolean>> recordIngestion(SourceData data, List<String> chunkHashes) {
+        return ingestionLedger.record(new SourceLedgerEntry(
+            data.sourceUrl(), data.etag(), data.lastModified(), data.contentHash(), chunkHashes));
     }
 }
@@ -0,0 +1,358 @@
+package com.catgineer.analytics_assistant.domain.services;
+
+import com.catgineer.analytics_assistant.domain.model.DatasetSlot;
+import com.catgineer.analytics_assistant.infrastructure.ports.VisualisationProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static io.vavr.API.*;
+import static io.vavr.Patterns.$Failure;
+import static io.vavr.Patterns.$Success;
+
+/**
+ * Pool of table/dataset pairs, so concurrent chart requests never write to the same table.
+ * A slot is leased to a session (or to a single request when no session is given) and stays with it
+ * until it has been idle for idleTimeout, so the session's latest chart keeps showing its data.
+ * A session with a busy slot gets another one. When every slot is leased, the least recently used
+ * lease that has been idle for longer than idleTimeout is taken over; a lease that has not expired yet
+ * is never taken from its session, so the request fails instead. The janitor releases expired leases, drops free slots beyond maxFree
+ * and pre-registers slots up to minFree, so most requests never wait on a dataset registration.
+ * Slot tables are named after the base table: the base table itself, then base_1, base_2, ...
+ * On start the pool adopts the base_N tables of earlier runs as free slots, so their numbers are not
+ * reused and the janitor reclaims the surplus; leases wait until that lookup has finished.
+ */
+public class DatasetPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetPool.class);
+
+    private static final class Slot {
+        private final String tableName;
+        private Integer datasetId; // null until registered, or after a failure that may have lost the dataset
+        private String session;    // null when free
+        private boolean busy;
+        private long lease;        // bumped on every lease, so a stale release cannot end a later one
+        private long lastUsedAt = System.nanoTime();
+
+        private Slot(String tableName, Integer datasetId) {
+            this.tableName = tableName;
+            this.datasetId = datasetId;
+        }
+    }
+
+    private record Lease(Slot slot, long id) {
+        private DatasetSlot datasetSlot() {
+            return new DatasetSlot(slot.tableName, slot.datasetId);
+        }
+    }
+
+    private final VisualisationProvider visualisationProvider;
+    private final String baseTableName;
+    private final int maxSlots;
+    private final int minFree;
+    private final int maxFree;
+    private final Duration idleTimeout;
+    private final Duration janitorInterval;
+
+    private final List<Slot> slots = new ArrayList<>();
+    private int nextSuffix = 1;
+    private int registering;
+    private volatile Mono<Void> adopted = Mono.empty();
+    private Disposable janitor;
+
+    public DatasetPool(
+            VisualisationProvider visualisationProvider,
+            String baseTableName,
+            Integer baseDatasetId,
+            int maxSlots,
+            int minFree,
+            int maxFree,
+            Duration idleTimeout,
+            Duration janitorInterval
+    ) {
+        if (maxSlots <= 0) {
+            throw new IllegalArgumentException("Dataset pool needs room for at least one slot");
+        }
+        this.visualisationProvider = visualisationProvider;
+        this.baseTableName = baseTableName;
+        this.maxSlots = maxSlots;
+        this.minFree = Math.max(0, Math.min(minFree, maxSlots));
+        this.maxFree = Math.max(this.minFree, maxFree);
+        this.idleTimeout = idleTimeout;
+        this.janitorInterval = janitorInterval;
+
+        // The configured table and dataset are the first slot, so existing deployments keep using them.
+        slots.add(new Slot(baseTableName, baseDatasetId));
+
+        Gauge.builder("dataset_pool.slots", this, pool -> pool.internalCount(slot -> slot.busy))
+                .tag("state", "busy").register(Metrics.globalRegistry);
+        Gauge.builder("dataset_pool.slots", this, pool -> pool.internalCount(slot -> !slot.busy && slot.session != null))
+                .tag("state", "leased").register(Metrics.globalRegistry);
+        Gauge.builder("dataset_pool.slots", this, pool -> pool.internalCount(slot -> slot.session == null))
+                .tag("state", "free").register(Metrics.globalRegistry);
+    }
+
+    public synchronized void start() {
+        if (janitor != null) return;
+        adopted = internalAdoptExisting().cache();
+        janitor = adopted.thenMany(Flux.interval(janitorInterval, janitorInterval))
+                .concatMap(tick -> internalJanitorPass())
+                .subscribe(
+                        dropped -> { },
+                        error -> logger.error("Dataset pool janitor stopped: {}", error.getMessage()));
+        logger.info("Dataset pool started on {} (max {} slots, idle timeout {})", baseTableName, maxSlots, idleTimeout);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (janitor != null) janitor.dispose();
+    }
+
+    private synchronized int internalCount(Predicate<Slot> state) {
+        return (int) slots.stream().filter(state).count();
+    }
+
+    /**
+     * Leases a slot to the session for the duration of the work. A failed work result marks the slot's
+     * dataset for re-registration, in case the failure was a dataset Superset no longer has.
+     * The lease ends once, when the work terminates or is cancelled.
+     */
+    public <T> Mono<Try<T>> withSlot(String session, Function<DatasetSlot, Mono<Try<T>>> work) {
+        String owner = session == null || session.isBlank() ? "request-" + UUID.randomUUID() : session;
+
+        return internalAcquire(owner, 1)
+                .flatMap(acquired -> Match(acquired.map(leases -> leases.get(0))).<Mono<Try<T>>>of(
+                        Case($Success($()), lease -> {
+                            AtomicBoolean healthy = new AtomicBoolean(true);
+                            return work.apply(lease.datasetSlot())
+                                    .doOnNext(result -> healthy.set(result.isSuccess()))
+                                    .doFinally(signal -> internalRelease(lease, healthy.get()));
+                        }),
+                        Case($Failure($()), ex -> Mono.just(Try.<T>failure(ex)))
+                ));
+    }
+
+    /**
+     * Leases count slots to the session at once, for the duration of the work; all of them or none.
+     * The work receives the slots, or the failure when the pool could not provide that many.
+     */
+    public <T> Flux<T> withSlots(String session, int count, Function<Try<List<DatasetSlot>>, Flux<T>> work) {
+        String owner = session == null || session.isBlank() ? "batch-" + UUID.randomUUID() : session;
+
+        return internalAcquire(owner, count)
+                .flatMapMany(acquired -> Match(acquired).<Flux<T>>of(
+                        Case($Success($()), leases -> work.apply(Try.success(leases.stream().map(Lease::datasetSlot).toList()))
+                                .doFinally(signal -> leases.forEach(lease -> internalRelease(lease, true)))),
+                        Case($Failure($()), ex -> work.apply(Try.failure(ex)))
+                ));
+    }
+
+    private Mono<Void> internalAdoptExisting() {
+        return visualisationProvider.listPoolTables(baseTableName)
+                .doOnNext(listed -> listed
+                        .onSuccess(this::internalAdopt)
+                        .onFailure(ex -> logger.warn("Could not look up existing slot tables of {}: {}", baseTableName, ex.getMessage())))
+                .then();
+    }
+
+    // Adopted slots are registered on first use, which finds the dataset they already have.
+    private synchronized void internalAdopt(List<String> tableNames) {
+        int adoptedCount = 0;
+        for (String tableName : tableNames) {
+            int suffix;
+            try {
+                suffix = Integer.parseInt(tableName.substring(baseTableName.length() + 1));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            nextSuffix = Math.max(nextSuffix, suffix + 1);
+            if (slots.stream().noneMatch(slot -> slot.tableName.equals(tableName))) {
+                slots.add(new Slot(tableName, null));
+                adoptedCount++;
+            }
+        }
+        if (adoptedCount > 0) logger.info("Adopted {} slot tables of {} from an earlier run", adoptedCount, baseTableName);
+    }
+
+    private Mono<Try<List<Lease>>> internalAcquire(String owner, int count) {
+        return adopted.then(Mono.defer(() -> internalAcquireNow(owner, count)));
+    }
+
+    /**
+     * Picks all count slots under one lock, or none, so a batch that cannot be served never holds slots
+     * that other requests are waiting for. Only the picked slots that still need a dataset are registered.
+     */
+    private Mono<Try<List<Lease>>> internalAcquireNow(String owner, int count) {
+        Optional<List<Lease>> picked;
+        boolean allBusy;
+        synchronized (this) {
+            picked = internalPick(owner, count);
+            allBusy = slots.stream().allMatch(slot -> slot.busy);
+        }
+
+        if (picked.isEmpty()) {
+            String reason = allBusy ? "All " + maxSlots + " dataset slots are busy"
+                    : count == 1 ? "All " + maxSlots + " dataset slots are leased to sessions that have not been idle for " + idleTimeout
+                    : "Not enough of the " + maxSlots + " dataset slots are free for " + count + " charts";
+            return Mono.just(Try.failure(new IllegalStateException(reason)));
+        }
+
+        List<Lease> leases = picked.get();
+        return Flux.fromIterable(leases)
+                .flatMap(lease -> lease.slot().datasetId != null ? Mono.just(Try.success(lease)) : internalRegister(lease))
+                .collectList()
+                .map(registered -> registered.stream()
+                        .filter(Try::isFailure)
+                        .map(Try::getCause)
+                        .findFirst()
+                        .<Try<List<Lease>>>map(ex -> {
+                            leases.forEach(lease -> internalRelease(lease, true));
+                            return Try.failure(ex);
+                        })
+                        .orElseGet(() -> Try.success(leases)));
+    }
+
+    /**
+     * In order: the owner's own idle slots, free slots, new slots, the least recently used expired leases.
+     * Nothing is changed unless count slots are found. New slots are added unregistered and registered
+     * outside the lock.
+     */
+    private Optional<List<Lease>> internalPick(String owner, int count) {
+        long now = System.nanoTime();
+        List<Slot> picked = new ArrayList<>(slots.stream()
+                .filter(slot -> !slot.busy && owner.equals(slot.session))
+                .limit(count)
+                .toList());
+        slots.stream()
+                .filter(slot -> slot.session == null && !slot.busy)
+                .limit(count - picked.size())
+                .forEach(picked::add);
+
+        int fresh = Math.max(0, Math.min(count - picked.size(), maxSlots - slots.size() - registering));
+        List<Slot> expired = slots.stream()
+                .filter(slot -> !slot.busy && slot.session != null && !owner.equals(slot.session)
+                        && now - slot.lastUsedAt > idleTimeout.toNanos())
+                .sorted(Comparator.comparingLong(slot -> slot.lastUsedAt))
+                .limit(count - picked.size() - fresh)
+                .toList();
+        if (picked.size() + fresh + expired.size() < count) return Optional.empty();
+
+        for (int i = 0; i < fresh; i++) {
+            Slot slot = new Slot(baseTableName + "_" + nextSuffix++, null);
+            slots.add(slot);
+            picked.add(slot);
+        }
+        expired.forEach(slot -> logger.info("Taking over dataset slot {} from expired lease {}", slot.tableName, slot.session));
+        picked.addAll(expired);
+
+        return Optional.of(picked.stream().map(slot -> {
+            slot.session = owner;
+            slot.busy = true;
+            slot.lastUsedAt = now;
+            return new Lease(slot, ++slot.lease);
+        }).toList());
+    }
+
+    private Mono<Try<Lease>> internalRegister(Lease lease) {
+        Slot slot = lease.slot();
+        return visualisationProvider.registerDataset(slot.tableName)
+                .map(registered -> Match(registered).<Try<Lease>>of(
+                        Case($Success($()), datasetId -> {
+                            synchronized (this) {
+                                slot.datasetId = datasetId;
+                            }
+                            return Try.success(lease);
+                        }),
+                        Case($Failure($()), ex -> {
+                            logger.error("Could not register dataset for {}: {}", slot.tableName, ex.getMessage());
+                            internalRelease(lease, false);
+                            return Try.<Lease>failure(ex);
+                        })
+                ));
+    }
+
+    // Only the current lease of a busy slot can end it; a repeated or late release is ignored.
+    private synchronized void internalRelease(Lease lease, boolean healthy) {
+        Slot slot = lease.slot();
+        if (!slot.busy || slot.lease != lease.id()) return;
+        slot.busy = false;
+        slot.lastUsedAt = System.nanoTime();
+        if (!healthy) slot.datasetId = null;
+    }
+
+    // One janitor pass on demand, so tests do not wait for janitorInterval.
+    Mono<Integer> runJanitorPass() {
+        return internalJanitorPass();
+    }
+
+    /**
+     * Ends leases idle for longer than idleTimeout, drops surplus free slots and pre-registers up to minFree.
+     * The base slot is never dropped.
+     */
+    private Mono<Integer> internalJanitorPass() {
+        List<Slot> surplus = new ArrayList<>();
+        List<Slot> prewarm = new ArrayList<>();
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Slot slot : slots) {
+                if (!slot.busy && slot.session != null && now - slot.lastUsedAt > idleTimeout.toNanos()) {
+                    slot.session = null;
+                }
+            }
+
+            List<Slot> free = slots.stream().filter(slot -> slot.session == null && !slot.busy).toList();
+            for (Slot slot : free) {
+                if (free.size() - surplus.size() <= maxFree) break;
+                if (slot.tableName.equals(baseTableName)) continue;
+                surplus.add(slot);
+            }
+            slots.removeAll(surplus);
+
+            int missing = Math.min(minFree - (free.size() - surplus.size()), maxSlots - slots.size() - registering);
+            for (int i = 0; i < missing; i++) {
+                prewarm.add(new Slot(baseTableName + "_" + nextSuffix++, null));
+            }
+            registering += prewarm.size();
+        }
+
+        Flux<Boolean> drops = Flux.fromIterable(surplus)
+                // Slots without a known dataset id (adopted, or after a failure) still have their table and dataset dropped.
+                .concatMap(slot -> visualisationProvider.dropDataset(slot.tableName, slot.datasetId).map(dropped -> dropped.getOrElse(false)));
+
+        Flux<Boolean> registrations = Flux.fromIterable(prewarm)
+                .concatMap(slot -> visualisationProvider.registerDataset(slot.tableName)
+                        .map(registered -> {
+                            synchronized (this) {
+                                registering--;
+                                registered.onSuccess(datasetId -> {
+                                    slot.datasetId = datasetId;
+                                    slots.add(slot);
+                                });
+                            }
+                            return registered.isSuccess();
+                        }));
+
+        return Flux.concat(drops, registrations)
+                .count()
+                .map(Long::intValue)
+                .doOnNext(changes -> {
+                    if (changes > 0) logger.info("Dataset pool janitor dropped {} and pre-registered {} slots", surplus.size(), prewarm.size());
+                });
+    }
+}
@@ -0,0 +1,70 @@
+package com.catgineer.analytics_assistant.domain.services;
+
+import com.catgineer.analytics_assistant.domain.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers the crystallised CSV schema per prompt template, so repeated templates skip schema inference.
+ * Prompts are reduced to a signature in which quoted literals and numbers are placeholders:
+ * "top 5 products in 2023" and "Top 10 products in 2024" share one schema.
+ */
+public class SchemaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCache.class);
+    private static final String CACHE_NAME = "inferred_schemas";
+    private static final Pattern QUOTED_LITERAL = Pattern.compile("\"[^\"]*\"|'[^']*'");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:[.,]\\d+)*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final LruCache<String, String> schemas;
+
+    public SchemaCache(int maxEntries, Duration ttl) {
+        this.schemas = new LruCache<>(CACHE_NAME, maxEntries, ttl);
+    }
+
+    private static String internalSignature(String prompt) {
+        String signature = QUOTED_LITERAL.matcher(prompt.strip().toLowerCase(Locale.ROOT)).replaceAll("?");
+        signature = NUMBER.matcher(signature).replaceAll("#");
+        signature = WHITESPACE.matcher(signature).replaceAll(" ");
+
+        int end = signature.length();
+        while (end > 0 && ".?!".indexOf(signature.charAt(end - 1)) >= 0) end--;
+        return signature.substring(0, end);
+    }
+
+    public String signatureOf(String prompt) {
+        return internalSignature(prompt);
+    }
+
+    public Optional<String> get(String prompt) {
+        return schemas.get(internalSignature(prompt));
+    }
+
+    public void put(String prompt, String schema) {
+        if (schema == null || schema.isBlank()) return;
+        schemas.put(internalSignature(prompt), schema.strip());
+    }
+
+    /**
+     * Drops the schema of the template the prompt belongs to; returns whether one was cached.
+     */
+    public boolean invalidate(String prompt) {
+        String signature = internalSignature(prompt);
+        boolean removed = schemas.invalidate(signature);
+        logger.info("Schema cache invalidation for signature [{}]: {}", signature, removed ? "removed" : "not cached");
+        return removed;
+    }
+
+    public int invalidateAll() {
+        int cleared = schemas.size();
+        schemas.invalidateAll();
+        logger.info("Schema cache cleared ({} entries)", cleared);
+        return cleared;
+    }
+}
@@ -1,17 +1,24 @@
 package com.catgineer.analytics_assistant.domain.services;
 
-import com.catgineer.analytics_assistant.domain.SafeRunner;
-import com.catgineer.analytics_assistant.domain.model.ChartData;
+import com.catgineer.analytics_assistant.domain.model.BatchChartResult;
 import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.DatasetSlot;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.TableLoad;
 import com.catgineer.analytics_assistant.infrastructure.ports.VisualisationProvider;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static io.vavr.API.*;
+import static io.vavr.Patterns.$Failure;
+import static io.vavr.Patterns.$Success;
+
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class VisualisationService {
 
@@ -23,52 +30,110 @@ public class VisualisationService {
     }
 
     /**
-     * Maps domain ChartData points to raw table rows.
-     * Each ChartData now contains a dynamic map of columns derived from the AI schema.
+     * Exposes the columnar data set as table rows.
+     * The rows are lightweight views over the column vectors, so no per-row maps are built.
      **/
-    private List<Map<String, Object>> internalMapToTableRows(List<ChartData> dataPoints) {
-        logger.debug("Mapping {} dynamic domain points to raw table rows", dataPoints.size());
-        
-        return dataPoints.stream()
-                .map(ChartData::getColumns) // Directly extract the internal Map
-                .collect(Collectors.toList());
+    private List<ColumnarTable.RowView> internalMapToTableRows(ColumnarTable table) {
+        logger.debug("Mapping {} columnar rows to table rows", table.rowCount());
+        return table.rows();
     }
 
-    private Integer internalSyncLogic(ChartDataSet dataSet, String targetTableName, Integer targetDatasetId) throws Exception {
-        logger.info("Executing deterministic sync logic for dataset id: {}", dataSet.id());
-        
-        List<Map<String, Object>> rows = internalMapToTableRows(dataSet.dataPoints());
+    private Mono<Try<Boolean>> internalWriteTable(ChartDataSet dataSet, String targetTableName) {
+        List<ColumnarTable.RowView> rows = internalMapToTableRows(dataSet.table());
+        List<ColumnDefinition> schema = dataSet.table().schema();
+        logger.info("Resolved schema for {}: {}", targetTableName, schema);
 
         logger.info("Writing {} rows to physical table: {}", rows.size(), targetTableName);
-        Try<Boolean> writeResult = visualisationProvider.overwritePhysicalTable(targetTableName, rows).toFuture().get();
-        if (writeResult.isFailure() || !writeResult.get()) {
-            logger.error("Physical table write failed for {}", targetTableName);
-            throw new RuntimeException("Data layer write failed");
-        }
+        return visualisationProvider.overwritePhysicalTable(targetTableName, schema, rows)
+                .map(writeResult -> Match(writeResult).<Try<Boolean>>of(
+                        Case($Success($(true)), ok -> Try.success(true)),
+                        Case($(), failed -> {
+                            logger.error("Physical table write failed for {}", targetTableName);
+                            return Try.failure(new RuntimeException("Data layer write failed"));
+                        })
+                ));
+    }
 
+    private Mono<Try<Boolean>> internalRefreshDataset(Integer targetDatasetId) {
         logger.info("Triggering refresh for Superset dataset id: {}", targetDatasetId);
-        Try<Boolean> refreshResult = visualisationProvider.refreshDataset(targetDatasetId).toFuture().get();
-        if (refreshResult.isFailure() || !refreshResult.get()) {
-            logger.error("Superset refresh failed for dataset id: {}", targetDatasetId);
-            throw new RuntimeException("Presentation refresh failed");
-        }
+        return visualisationProvider.refreshDataset(targetDatasetId)
+                .map(refreshResult -> Match(refreshResult).<Try<Boolean>>of(
+                        Case($Success($(true)), ok -> Try.success(true)),
+                        Case($(), failed -> {
+                            logger.error("Superset refresh failed for dataset id: {}", targetDatasetId);
+                            return Try.failure(new RuntimeException("Presentation refresh failed"));
+                        })
+                ));
+    }
 
+    private Mono<Try<Integer>> internalCreateChart(String targetTableName, Integer targetDatasetId) {
         logger.info("Creating chart for identifier: {}", targetTableName);
-        Try<Integer> chartResult = visualisationProvider.createChart(targetDatasetId, "Chart_" + targetTableName, "bar", "{}")
-                .toFuture()
-                .get();
+        return visualisationProvider.createChart(targetDatasetId, "Chart_" + targetTableName, "bar", "{}")
+                .map(chartResult -> Match(chartResult).<Try<Integer>>of(
+                        Case($Success($()), chartId -> {
+                            logger.info("Sync logic completed successfully. Generated Chart ID: {}", chartId);
+                            return Try.success(chartId);
+                        }),
+                        Case($Failure($()), ex -> {
+                            logger.error("Chart creation logic failed for identifier: {}", targetTableName);
+                            return Try.failure(new RuntimeException("Chart creation failed", ex));
+                        })
+                ));
+    }
+
+    /**
+     * Write, refresh and chart creation composed without blocking; a failed stage short-circuits.
+     */
+    private Mono<Try<Integer>> internalSyncLogic(ChartDataSet dataSet, DatasetSlot slot) {
+        logger.info("Executing deterministic sync logic for dataset id: {}", dataSet.id());
 
-        Integer chartId = chartResult.getOrElseThrow(() -> {
-            logger.error("Chart creation logic failed for identifier: {}", targetTableName);
-            return new RuntimeException("Chart creation failed");
-        });
+        return internalWriteTable(dataSet, slot.tableName())
+                .flatMap(writeResult -> Match(writeResult).<Mono<Try<Integer>>>of(
+                        Case($Success($()), written -> internalRefreshAndChart(slot)),
+                        Case($Failure($()), ex -> Mono.just(Try.<Integer>failure(ex)))
+                ));
+    }
 
-        logger.info("Sync logic completed successfully. Generated Chart ID: {}", chartId);
-        return chartId;
+    private Mono<Try<Integer>> internalRefreshAndChart(DatasetSlot slot) {
+        return internalRefreshDataset(slot.datasetId())
+                .flatMap(refreshResult -> Match(refreshResult).<Mono<Try<Integer>>>of(
+                        Case($Success($()), refreshed -> internalCreateChart(slot.tableName(), slot.datasetId())),
+                        Case($Failure($()), ex -> Mono.just(Try.<Integer>failure(ex)))
+                ));
     }
 
-    public Mono<Try<Integer>> syncDataToVisualisation(ChartDataSet dataSet, String targetTableName, Integer targetDatasetId) {
-        logger.info("Orchestrating safe async sync for dataset: {}", dataSet.id());
-        return SafeRunner.futureSafe(() -> internalSyncLogic(dataSet,targetTableName, targetDatasetId));
+    /**
+     * Writes the data into the slot's table and charts it on the slot's dataset; the caller holds the slot's lease.
+     */
+    public Mono<Try<Integer>> syncDataToVisualisation(ChartDataSet dataSet, DatasetSlot slot) {
+        logger.info("Orchestrating safe async sync for dataset: {} into {}", dataSet.id(), slot.tableName());
+        return internalSyncLogic(dataSet, slot);
+    }
+
+    /**
+     * Writes every data set into its slot's table in one transaction, then refreshes each slot's dataset
+     * once and creates its chart. Results are emitted as charts are created, indexed by position in the lists;
+     * when the shared write fails, every chart fails with it. The caller holds the slots' leases.
+     */
+    public Flux<BatchChartResult> syncBatchToVisualisation(List<ChartDataSet> dataSets, List<DatasetSlot> slots) {
+        logger.info("Orchestrating batch sync of {} datasets", dataSets.size());
+        List<TableLoad> loads = IntStream.range(0, dataSets.size())
+                .mapToObj(i -> new TableLoad(
+                        slots.get(i).tableName(),
+                        dataSets.get(i).table().schema(),
+                        internalMapToTableRows(dataSets.get(i).table())))
+                .toList();
+
+        return visualisationProvider.overwritePhysicalTables(loads)
+                .flatMapMany(writeResult -> Match(writeResult).<Flux<BatchChartResult>>of(
+                        Case($Success($(true)), ok -> Flux.range(0, slots.size())
+                                .flatMap(i -> internalRefreshAndChart(slots.get(i))
+                                        .map(chartResult -> new BatchChartResult(i, chartResult)))),
+                        Case($(), failed -> {
+                            logger.error("Physical table write failed for batch of {} tables", loads.size());
+                            return Flux.range(0, slots.size())
+                                    .map(i -> new BatchChartResult(i, Try.failure(new RuntimeException("Data layer write failed"))));
+                        })
+                ));
     }
 }
@@ -0,0 +1,115 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.AdaptiveLimiter;
+import com.catgineer.analytics_assistant.domain.AdmissionRejectedException;
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
+import com.catgineer.analytics_assistant.infrastructure.ports.AIProvider;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts an adaptive concurrency limit per model in front of the completion calls of another AIProvider,
+ * so an overloaded model server sheds load instead of queueing every request until it times out.
+ * A rejected call yields a failed Try carrying AdmissionRejectedException; all other calls pass through.
+ */
+public class AdmissionControlledAIProvider implements AIProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlledAIProvider.class);
+
+    private final AIProvider delegate;
+    private final int initialLimit;
+    private final int maxLimit;
+    private final Map<String, Integer> modelMaxLimits;
+    private final int maxQueued;
+    private final Duration latencyTarget;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdmissionControlledAIProvider(
+            AIProvider delegate,
+            int initialLimit,
+            int maxLimit,
+            Map<String, Integer> modelMaxLimits,
+            int maxQueued,
+            Duration latencyTarget
+    ) {
+        this.delegate = delegate;
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.modelMaxLimits = Map.copyOf(modelMaxLimits);
+        this.maxQueued = maxQueued;
+        this.latencyTarget = latencyTarget;
+    }
+
+    private AdaptiveLimiter internalLimiterFor(String model) {
+        return limiters.computeIfAbsent(model == null ? "default" : model, name -> {
+            int cap = modelMaxLimits.getOrDefault(name, maxLimit);
+            logger.info("Admission limiter for model {}: initial {}, max {}, queue {}", name, Math.min(initialLimit, cap), cap, maxQueued);
+            return new AdaptiveLimiter("ai." + name, Math.min(initialLimit, cap), 1, cap, maxQueued, latencyTarget);
+        });
+    }
+
+    @Override
+    public Mono<Try<String>> sendPromptToAI(String model, String prompt, List<String> contextData) {
+        return internalLimiterFor(model)
+                .run(() -> delegate.sendPromptToAI(model, prompt, contextData), Try::isFailure)
+                .onErrorResume(AdmissionRejectedException.class, ex -> {
+                    logger.warn("Completion for model {} rejected: {}", model, ex.getMessage());
+                    return Mono.just(Try.<String>failure(ex));
+                });
+    }
+
+    @Override
+    public Flux<Try<String>> streamPromptToAI(String model, String prompt, List<String> contextData) {
+        return internalLimiterFor(model)
+                .runStream(() -> delegate.streamPromptToAI(model, prompt, contextData), Try::isFailure)
+                .onErrorResume(AdmissionRejectedException.class, ex -> {
+                    logger.warn("Streamed completion for model {} rejected: {}", model, ex.getMessage());
+                    return Flux.just(Try.<String>failure(ex));
+                });
+    }
+
+    @Override
+    public Mono<Try<Boolean>> validatePrompt(String prompt) {
+        return delegate.validatePrompt(prompt);
+    }
+
+    @Override
+    public Mono<Try<Boolean>> validateAIResponse(String aiResponse) {
+        return delegate.validateAIResponse(aiResponse);
+    }
+
+    @Override
+    public Mono<Try<ChartDataSet>> extractChartDataSet(String prompt, String aiResponse) {
+        return delegate.extractChartDataSet(prompt, aiResponse);
+    }
+
+    @Override
+    public Flux<Try<ChartStreamEvent>> extractChartDataSetIncrementally(String prompt, Flux<String> csvDeltas) {
+        return delegate.extractChartDataSetIncrementally(prompt, csvDeltas);
+    }
+
+    @Override
+    public Mono<Try<Boolean>> embedData(String data) {
+        return delegate.embedData(data);
+    }
+
+    @Override
+    public Mono<Try<List<String>>> embedChangedChunks(String sourceUrl, SourceBody data, List<String> previousChunkHashes) {
+        return delegate.embedChangedChunks(sourceUrl, data, previousChunkHashes);
+    }
+
+    @Override
+    public Mono<Try<Boolean>> authenticate(String username, String password) {
+        return delegate.authenticate(username, password);
+    }
+}
@@ -0,0 +1,370 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Packs consecutive units (lines, sentences, JSON elements) into chunks up to the target byte size.
+ * A unit larger than the target is cut at the byte budget, never inside a surrogate pair.
+ * With overlap, a chunk starts with the trailing units of the previous chunk that fit in the overlap budget.
+ */
+abstract class BoundaryChunker implements Chunker {
+
+    private final int targetBytes;
+    private final int overlapBytes;
+
+    BoundaryChunker(int targetBytes, int overlapBytes) {
+        if (targetBytes < 4) {
+            throw new IllegalArgumentException("Chunk target must be at least 4 bytes, got " + targetBytes);
+        }
+        this.targetBytes = targetBytes;
+        // Overlap beyond half the target would leave too little room for new content in each chunk.
+        this.overlapBytes = Math.max(0, Math.min(overlapBytes, targetBytes / 2));
+    }
+
+    /**
+     * Finds the end (exclusive) of the unit starting at from; always greater than from.
+     */
+    @FunctionalInterface
+    interface Boundary {
+        int next(CharSequence text, int from);
+    }
+
+    /**
+     * Picks the unit boundary for a text, given at least its first chunk's worth of characters.
+     */
+    abstract Boundary boundaryFor(CharSequence head);
+
+    @Override
+    public Stream<Span> split(CharSequence text) {
+        return stream(new SpanIterator(text, null, boundaryFor(text)));
+    }
+
+    @Override
+    public Stream<String> split(Reader reader) {
+        ReaderWindow window = new ReaderWindow(reader);
+        window.fillTo(targetBytes + 1);
+        SpanIterator spans = new SpanIterator(window, window, boundaryFor(window));
+
+        return stream(new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return spans.hasNext();
+            }
+
+            @Override
+            public String next() {
+                String chunk = spans.next().of(window);
+                window.release(spans.retainFrom());
+                return chunk;
+            }
+        });
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    static int utf8Length(CharSequence text, int from, int to) {
+        int bytes = 0;
+        for (int i = from; i < to; i++) {
+            bytes += utf8Length(text.charAt(i));
+        }
+        return bytes;
+    }
+
+    // Stops counting once the limit is exceeded, so oversized units are not scanned to their end.
+    private static int utf8LengthUpTo(CharSequence text, int from, int to, int limit) {
+        int bytes = 0;
+        for (int i = from; i < to && bytes <= limit; i++) {
+            bytes += utf8Length(text.charAt(i));
+        }
+        return bytes;
+    }
+
+    // A surrogate pair encodes to four bytes, counted on the high surrogate.
+    private static int utf8Length(char c) {
+        if (c < 0x80) return 1;
+        if (c < 0x800) return 2;
+        if (Character.isHighSurrogate(c)) return 4;
+        if (Character.isLowSurrogate(c)) return 0;
+        return 3;
+    }
+
+    // Largest end in (from, to] whose bytes fit the budget; at least one code point so the split always advances.
+    private static int cutAtBudget(CharSequence text, int from, int to, int budget) {
+        int bytes = 0;
+        int i = from;
+        while (i < to) {
+            int step = Character.isHighSurrogate(text.charAt(i)) && i + 1 < to ? 2 : 1;
+            int size = utf8Length(text.charAt(i));
+            if (bytes + size > budget && i > from) break;
+            bytes += size;
+            i += step;
+        }
+        return i;
+    }
+
+    /**
+     * Absolute-indexed view over the part of a Reader's text that is still needed.
+     * Characters before the released index are dropped; length() is the end of what has been read so far.
+     */
+    private static final class ReaderWindow implements CharSequence {
+        private final Reader reader;
+        private final StringBuilder buffer = new StringBuilder();
+        private final char[] readBuffer = new char[8192];
+        private int offset;
+        private boolean exhausted;
+
+        private ReaderWindow(Reader reader) {
+            this.reader = reader;
+        }
+
+        void fillTo(int end) {
+            try {
+                while (!exhausted && offset + buffer.length() < end) {
+                    int read = reader.read(readBuffer);
+                    if (read < 0) exhausted = true;
+                    else buffer.append(readBuffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void release(int before) {
+            int drop = before - offset;
+            if (drop > 0) {
+                buffer.delete(0, drop);
+                offset = before;
+            }
+        }
+
+        boolean exhausted() {
+            return exhausted;
+        }
+
+        @Override
+        public int length() {
+            return offset + buffer.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buffer.charAt(index - offset);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return buffer.subSequence(start - offset, end - offset);
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    /**
+     * With a window, at least targetBytes + 1 characters past the chunk start are buffered before packing.
+     * A unit running into the end of the buffer is then longer than the budget and gets cut, so a boundary
+     * is never taken from the buffer end unless the reader is exhausted.
+     */
+    private final class SpanIterator implements Iterator<Span> {
+        private final CharSequence text;
+        private final ReaderWindow window;
+        private final Boundary boundary;
+        private final ArrayDeque<int[]> carried = new ArrayDeque<>(); // {start, end, bytes} of overlap units
+        private int position;
+        private int pendingEnd = -1; // end of a unit that was cut, so its remainder is not re-scanned
+
+        private SpanIterator(CharSequence text, ReaderWindow window, Boundary boundary) {
+            this.text = text;
+            this.window = window;
+            this.boundary = boundary;
+        }
+
+        private boolean atEnd() {
+            return position >= text.length() && (window == null || window.exhausted());
+        }
+
+        int retainFrom() {
+            return carried.isEmpty() ? position : carried.peekFirst()[0];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (window != null) window.fillTo(position + 1);
+            return position < text.length();
+        }
+
+        @Override
+        public Span next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (window != null) window.fillTo(position + targetBytes + 1);
+
+            ArrayDeque<int[]> units = new ArrayDeque<>(carried);
+            int chunkStart = carried.isEmpty() ? position : carried.peekFirst()[0];
+            int bytes = 0;
+            for (int[] unit : carried) bytes += unit[2];
+            boolean advanced = false;
+
+            while (position < text.length()) {
+                int end = pendingEnd > position ? pendingEnd : boundary.next(text, position);
+                int unitBytes = utf8LengthUpTo(text, position, end, targetBytes - bytes);
+
+                if (bytes + unitBytes > targetBytes) {
+                    if (advanced) break;
+                    // A unit cut at the buffer end has no known end yet; its remainder is scanned again.
+                    pendingEnd = end < text.length() || window == null || window.exhausted() ? end : -1;
+                    end = cutAtBudget(text, position, end, targetBytes - bytes);
+                    unitBytes = utf8Length(text, position, end);
+                }
+
+                units.addLast(new int[] {position, end, unitBytes});
+                bytes += unitBytes;
+                position = end;
+                advanced = true;
+            }
+
+            internalCarryOverlap(units);
+            return new Span(chunkStart, position);
+        }
+
+        // Keeps the trailing units that fit the overlap budget, but never all of them, so every chunk adds content.
+        private void internalCarryOverlap(ArrayDeque<int[]> units) {
+            carried.clear();
+            if (overlapBytes == 0 || atEnd()) return;
+
+            int bytes = 0;
+            while (units.size() > 1) {
+                int[] last = units.pollLast();
+                if (bytes + last[2] > overlapBytes) break;
+                bytes += last[2];
+                carried.addFirst(last);
+            }
+        }
+    }
+
+    static final class LineChunker extends BoundaryChunker {
+        LineChunker(int targetBytes, int overlapBytes) {
+            super(targetBytes, overlapBytes);
+        }
+
+        @Override
+        Boundary boundaryFor(CharSequence head) {
+            return LineChunker::nextLine;
+        }
+
+        static int nextLine(CharSequence text, int from) {
+            for (int i = from; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') return i + 1;
+            }
+            return text.length();
+        }
+    }
+
+    static final class SentenceChunker extends BoundaryChunker {
+        SentenceChunker(int targetBytes, int overlapBytes) {
+            super(targetBytes, overlapBytes);
+        }
+
+        @Override
+        Boundary boundaryFor(CharSequence head) {
+            return SentenceChunker::nextSentence;
+        }
+
+        // A sentence ends after terminal punctuation followed by whitespace, or at a line break; trailing whitespace stays with it.
+        static int nextSentence(CharSequence text, int from) {
+            int i = from;
+            while (i < text.length()) {
+                char c = text.charAt(i++);
+                boolean terminal = (c == '.' || c == '!' || c == '?')
+                        && (i == text.length() || Character.isWhitespace(text.charAt(i)));
+                if (terminal || c == '\n') {
+                    while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+                    return i;
+                }
+            }
+            return text.length();
+        }
+    }
+
+    /**
+     * Units are the elements of a top-level JSON array, each with its trailing comma; the opening
+     * bracket belongs to the first element and the closing bracket to the last. Brackets inside
+     * strings are ignored. For a top-level object the units are its members. When reading from a
+     * Reader, an element longer than the read-ahead is rescanned from its cut point, so its remainder
+     * may split at inner commas.
+     */
+    static final class JsonArrayChunker extends BoundaryChunker {
+        JsonArrayChunker(int targetBytes, int overlapBytes) {
+            super(targetBytes, overlapBytes);
+        }
+
+        @Override
+        Boundary boundaryFor(CharSequence head) {
+            return JsonArrayChunker::nextElement;
+        }
+
+        // Every boundary but the first lies right after a top-level comma, so scanning resumes at depth one.
+        static int nextElement(CharSequence text, int from) {
+            int depth = from == 0 ? 0 : 1;
+            boolean inString = false;
+
+            for (int i = from; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (inString) {
+                    if (c == '\\') i++;
+                    else if (c == '"') inString = false;
+                    continue;
+                }
+                switch (c) {
+                    case '"' -> inString = true;
+                    case '[', '{' -> depth++;
+                    case ']', '}' -> {
+                        depth--;
+                        if (depth == 0) return i + 1;
+                    }
+                    case ',' -> {
+                        if (depth == 1) return i + 1;
+                    }
+                    default -> { }
+                }
+            }
+            return text.length();
+        }
+    }
+
+    /**
+     * Picks json for a JSON array, lines for multi-line text and sentences otherwise, from the start of the text.
+     */
+    static final class AutoChunker extends BoundaryChunker {
+        AutoChunker(int targetBytes, int overlapBytes) {
+            super(targetBytes, overlapBytes);
+        }
+
+        @Override
+        Boundary boundaryFor(CharSequence head) {
+            for (int i = 0; i < head.length(); i++) {
+                char c = head.charAt(i);
+                if (Character.isWhitespace(c)) continue;
+                if (c == '[') return JsonArrayChunker::nextElement;
+                break;
+            }
+            for (int i = 0; i < head.length(); i++) {
+                if (head.charAt(i) == '\n') return LineChunker::nextLine;
+            }
+            return SentenceChunker::nextSentence;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import java.io.Reader;
+import java.util.stream.Stream;
+
+/**
+ * Splits text into chunks of at most a target number of UTF-8 bytes.
+ * Chunks are produced lazily as spans over the source text; callers copy a chunk only when they send it.
+ * Text read from a Reader is chunked through a sliding window, so only about one chunk is held in memory.
+ */
+public interface Chunker {
+
+    record Span(int start, int end) {
+        public String of(CharSequence text) {
+            return text.subSequence(start, end).toString();
+        }
+    }
+
+    Stream<Span> split(CharSequence text);
+
+    // The caller owns the reader and closes it once the stream is consumed.
+    Stream<String> split(Reader reader);
+
+    /**
+     * Strategies: "json" (top-level array elements), "lines", "sentences", or "auto",
+     * which picks json for a JSON array, lines for multi-line text and sentences otherwise.
+     */
+    static Chunker named(String strategy, int targetBytes, int overlapBytes) {
+        return switch (strategy.strip().toLowerCase()) {
+            case "json" -> new BoundaryChunker.JsonArrayChunker(targetBytes, overlapBytes);
+            case "lines" -> new BoundaryChunker.LineChunker(targetBytes, overlapBytes);
+            case "sentences" -> new BoundaryChunker.SentenceChunker(targetBytes, overlapBytes);
+            case "auto" -> new BoundaryChunker.AutoChunker(targetBytes, overlapBytes);
+            default -> throw new IllegalArgumentException("Unknown chunking strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnType;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects tokenized CSV records into a {@link ColumnarTable}.
+ * The first record is the header; every later cell is dictionary-encoded into its column and folded
+ * into the column type as it arrives, so no per-row structures are kept.
+ */
+final class CsvColumnCollector implements CsvTokenizer.RowHandler {
+
+    private List<String> headers;
+    private ColumnarTable.Builder builder;
+    private ColumnType[] types;
+
+    @Override
+    public void onRow(List<String> fields) {
+        // Records without a delimiter are prose around the data, mirroring the old comma filter.
+        if (fields.size() < 2) return;
+
+        if (headers == null) {
+            initialise(fields);
+            return;
+        }
+
+        for (int i = 0; i < types.length; i++) {
+            ColumnType cellType = i < fields.size() ? ValueTypeScanner.infer(fields.get(i)) : null;
+            if (cellType != null) {
+                types[i] = types[i] == null ? cellType : types[i].widen(cellType);
+            }
+        }
+        builder.appendRow(fields);
+    }
+
+    private void initialise(List<String> fields) {
+        List<String> sanitized = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            sanitized.add(field.trim().toLowerCase().replace(" ", "_")); // Sanitize for Postgres
+        }
+        headers = List.copyOf(sanitized);
+        types = new ColumnType[headers.size()];
+        builder = ColumnarTable.builder(headers);
+    }
+
+    boolean hasHeader() {
+        return headers != null;
+    }
+
+    List<String> headers() {
+        return headers == null ? List.of() : headers;
+    }
+
+    int rowCount() {
+        return builder == null ? 0 : builder.rowCount();
+    }
+
+    /**
+     * Columns without any non-blank value resolve to TEXT.
+     */
+    ColumnarTable toTable() {
+        if (headers == null) return ColumnarTable.empty();
+
+        List<ColumnType> resolved = Arrays.stream(types)
+                .map(t -> t == null ? ColumnType.TEXT : t)
+                .toList();
+        return builder.build(resolved);
+    }
+}
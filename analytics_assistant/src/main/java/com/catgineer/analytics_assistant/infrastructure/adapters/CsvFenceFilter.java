@@ -0,0 +1,72 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+/**
+ * Incremental counterpart of locateCsvBlock for streamed completions: passes on only the body of the
+ * first fenced code block, so prose around the fence never reaches the tokenizer.
+ * Text before an opening fence is held back; when the response ends without any fence, it is passed on
+ * whole, as locateCsvBlock falls back to the whole response. Everything from the closing fence on is dropped,
+ * and a fence that never closes runs to the end of the response.
+ */
+final class CsvFenceFilter {
+
+    private enum State { SEARCHING, OPENING, IN_BLOCK, CLOSED }
+
+    private final StringBuilder held = new StringBuilder();
+    private State state = State.SEARCHING;
+    private int backticks; // Consecutive backticks just seen, which may be part of a fence.
+
+    /**
+     * @return the part of the delta that belongs to the CSV block, possibly empty.
+     */
+    String feed(CharSequence delta) {
+        StringBuilder out = new StringBuilder(delta.length());
+        for (int i = 0; i < delta.length(); i++) {
+            accept(delta.charAt(i), out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return what is still held back once the response has ended.
+     */
+    String finish() {
+        String rest = switch (state) {
+            case SEARCHING -> held.toString();
+            case IN_BLOCK -> "`".repeat(backticks);
+            case OPENING, CLOSED -> "";
+        };
+        held.setLength(0);
+        backticks = 0;
+        state = State.CLOSED;
+        return rest;
+    }
+
+    private void accept(char c, StringBuilder out) {
+        switch (state) {
+            case SEARCHING -> {
+                held.append(c);
+                backticks = c == '`' ? backticks + 1 : 0;
+                if (backticks == 3) {
+                    held.setLength(0);
+                    backticks = 0;
+                    state = State.OPENING;
+                }
+            }
+            case OPENING -> {
+                // The rest of the fence line is the info string, e.g. "csv".
+                if (c == '\n') state = State.IN_BLOCK;
+            }
+            case IN_BLOCK -> {
+                if (c == '`') {
+                    if (++backticks == 3) state = State.CLOSED;
+                    return;
+                }
+                for (; backticks > 0; backticks--) out.append('`');
+                out.append(c);
+            }
+            case CLOSED -> {
+                // Prose after the block is ignored.
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+
+import java.io.Reader;
+import java.util.Iterator;
+
+/**
+ * Lazily renders columnar rows as PostgreSQL COPY CSV.
+ * Only the row currently being consumed by the driver is held as text.
+ */
+final class CsvRowReader extends Reader {
+
+    private final Iterator<ColumnarTable.RowView> rows;
+    private final int columnCount;
+    private final StringBuilder line = new StringBuilder(256);
+    private int position;
+    private long rowCount;
+
+    CsvRowReader(Iterable<ColumnarTable.RowView> rows, int columnCount) {
+        this.rows = rows.iterator();
+        this.columnCount = columnCount;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        if (length == 0) return 0;
+
+        int written = 0;
+        while (written < length) {
+            if (position == line.length()) {
+                if (!rows.hasNext()) break;
+                encodeRow(rows.next());
+            }
+            int count = Math.min(length - written, line.length() - position);
+            line.getChars(position, position + count, buffer, offset + written);
+            position += count;
+            written += count;
+        }
+        return written == 0 ? -1 : written;
+    }
+
+    private void encodeRow(ColumnarTable.RowView row) {
+        line.setLength(0);
+        position = 0;
+
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) line.append(',');
+            appendValue(line, row.text(i));
+        }
+        line.append('\n');
+        rowCount++;
+    }
+
+    // An unquoted empty field is NULL in COPY CSV, so nulls are left empty and empty strings are quoted.
+    // A bare \. would be read as the end-of-data marker, so it is quoted as well.
+    static void appendValue(StringBuilder out, String text) {
+        if (text == null) return;
+
+        if (!text.isEmpty() && !requiresQuoting(text) && !text.equals("\\.")) {
+            out.append(text);
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean requiresQuoting(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        line.setLength(0);
+        position = 0;
+    }
+}
@@ -0,0 +1,144 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass RFC 4180 tokenizer for AI generated CSV.
+ * Input is pushed in arbitrary slices, so the same instance can consume a whole response
+ * or a stream of partial chunks. Unquoted fields are trimmed, quoted fields keep their content
+ * verbatim (including commas, doubled quotes and line breaks), blank lines and markdown
+ * fence lines are skipped.
+ */
+final class CsvTokenizer {
+
+    interface RowHandler {
+        /**
+         * Receives one record. The list is reused between calls and must not be retained.
+         */
+        void onRow(List<String> fields);
+    }
+
+    private enum State { ROW_START, FIELD, QUOTED, QUOTE_IN_QUOTED, AFTER_QUOTED, SKIP_LINE }
+
+    private final RowHandler handler;
+    private final StringBuilder field = new StringBuilder(64);
+    private final List<String> fields = new ArrayList<>();
+    private State state = State.ROW_START;
+    private boolean fieldQuoted;
+
+    CsvTokenizer(RowHandler handler) {
+        this.handler = handler;
+    }
+
+    void feed(CharSequence text) {
+        feed(text, 0, text.length());
+    }
+
+    void feed(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    /**
+     * Flushes a trailing record that was not terminated by a line break.
+     */
+    void finish() {
+        if (state != State.ROW_START && state != State.SKIP_LINE) {
+            endRow();
+        }
+        state = State.ROW_START;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case ROW_START -> {
+                if (c == '\n' || c == '\r') return;
+                if (c == '`') {
+                    state = State.SKIP_LINE;
+                    return;
+                }
+                state = State.FIELD;
+                acceptInField(c);
+            }
+            case FIELD -> acceptInField(c);
+            case QUOTED -> {
+                if (c == '"') state = State.QUOTE_IN_QUOTED;
+                else field.append(c);
+            }
+            case QUOTE_IN_QUOTED -> {
+                if (c == '"') {
+                    field.append('"');
+                    state = State.QUOTED;
+                } else {
+                    state = State.AFTER_QUOTED;
+                    acceptAfterQuoted(c);
+                }
+            }
+            case AFTER_QUOTED -> acceptAfterQuoted(c);
+            case SKIP_LINE -> {
+                if (c == '\n') state = State.ROW_START;
+            }
+        }
+    }
+
+    private void acceptInField(char c) {
+        switch (c) {
+            case ',' -> endField();
+            case '\n' -> endRow();
+            case '\r' -> { }
+            case '"' -> {
+                if (isBlank(field)) {
+                    field.setLength(0);
+                    fieldQuoted = true;
+                    state = State.QUOTED;
+                } else {
+                    field.append(c);
+                }
+            }
+            default -> field.append(c);
+        }
+    }
+
+    // Text between a closing quote and the delimiter is kept leniently, whitespace is dropped.
+    private void acceptAfterQuoted(char c) {
+        switch (c) {
+            case ',' -> {
+                endField();
+                state = State.FIELD;
+            }
+            case '\n' -> endRow();
+            case ' ', '\t', '\r' -> { }
+            default -> field.append(c);
+        }
+    }
+
+    private void endField() {
+        fields.add(fieldQuoted ? field.toString() : stripped(field));
+        field.setLength(0);
+        fieldQuoted = false;
+    }
+
+    private void endRow() {
+        endField();
+        handler.onRow(fields);
+        fields.clear();
+        state = State.ROW_START;
+    }
+
+    private static String stripped(StringBuilder sb) {
+        int start = 0;
+        int end = sb.length();
+        while (start < end && Character.isWhitespace(sb.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(sb.charAt(end - 1))) end--;
+        return start == end ? "" : sb.substring(start, end);
+    }
+
+    private static boolean isBlank(StringBuilder sb) {
+        for (int i = 0; i < sb.length(); i++) {
+            if (!Character.isWhitespace(sb.charAt(i))) return false;
+        }
+        return true;
+    }
+}
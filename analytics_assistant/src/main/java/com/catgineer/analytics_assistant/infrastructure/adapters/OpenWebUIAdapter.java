@@ -1,48 +1,102 @@
 package com.catgineer.analytics_assistant.infrastructure.adapters;
 
+import com.catgineer.analytics_assistant.domain.ContentHash;
 import com.catgineer.analytics_assistant.domain.SafeRunner;
-import com.catgineer.analytics_assistant.domain.model.ChartData;
 import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
 import com.catgineer.analytics_assistant.infrastructure.ports.AIProvider;
 import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
-import java.util.Arrays;
+import static io.vavr.API.*;
+import static io.vavr.Patterns.$Failure;
+import static io.vavr.Patterns.$Success;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 record ChatMessage(String role, String content) {}
 record ChatCompletionRequest(String model, List<ChatMessage> messages) {}
+record StreamingChatCompletionRequest(String model, List<ChatMessage> messages, boolean stream) {}
 
 public class OpenWebUIAdapter implements AIProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(OpenWebUIAdapter.class);
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final String STREAM_DONE = "[DONE]";
+    private static final String AI_STAGE = "openwebui";
+    private static final String EMBEDDING_STAGE = "embedding";
+    private static final Duration CHUNK_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
     private final RestClient restClient;
-    private final RestClient bridgeClient; // Client for the Android Python bridge(embedding).
+    private final WebClient webClient; // Streaming client for token-by-token completions.
+    private final WebClient bridgeWebClient; // Client for the Android Python bridge(embedding).
+    private final Chunker chunker;
+    private final int embedMaxInFlight;
+    private final int embedMaxRetries;
+    private final Duration embedRetryBackoff;
+    private final Timer chunkLatency;
+    private final Counter chunkRetries;
+    private final Counter uploadedBytes;
     private final String baseUrl;
     private final String targetDatasetId;
     private final String targetTableName;
 
     public OpenWebUIAdapter(
             RestClient.Builder restClientBuilder, 
+            WebClient.Builder webClientBuilder,
+            WebClient.Builder bridgeClientBuilder,
             String baseUrl, 
             String targetDatasetId,
             String targetTableName,
             String apiKey,
-            String bridgeUrl // Injected from EMBEDDING_NODE_URL.
+            String bridgeUrl, // Injected from EMBEDDING_NODE_URL.
+            Chunker chunker,
+            int embedMaxInFlight,
+            int embedMaxRetries,
+            Duration embedRetryBackoff
     ) {
         
         this.targetDatasetId = targetDatasetId;
+        this.chunker = chunker;
+        this.embedMaxInFlight = Math.max(1, embedMaxInFlight);
+        this.embedMaxRetries = Math.max(0, embedMaxRetries);
+        this.embedRetryBackoff = embedRetryBackoff;
+
+        // The bridge has its own builder, so it never inherits the OpenWebUI credentials.
+        this.bridgeWebClient = bridgeClientBuilder
+                .baseUrl(bridgeUrl)
+                .build();
         this.targetTableName = targetTableName;
         this.baseUrl = baseUrl;
 
@@ -51,10 +105,19 @@ public class OpenWebUIAdapter implements AIProvider {
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .build();
 
-        this.bridgeClient = restClientBuilder
-                .baseUrl(bridgeUrl)
+        this.webClient = webClientBuilder
+                .baseUrl(baseUrl)
+                .defaultHeader("Authorization", "Bearer " + apiKey)
                 .build();
-        
+
+        this.chunkLatency = Timer.builder("embedding.chunk.latency")
+                .description("Bridge upload latency of the successful attempt per chunk")
+                .register(Metrics.globalRegistry);
+        this.chunkRetries = Counter.builder("embedding.chunk.retries").register(Metrics.globalRegistry);
+        this.uploadedBytes = Counter.builder("embedding.upload.bytes")
+                .baseUnit("bytes")
+                .register(Metrics.globalRegistry);
+
         logger.info("OpenWebUIAdapter initialized. Bridge Target: {}", bridgeUrl);
     }
 
@@ -100,122 +163,291 @@ public class OpenWebUIAdapter implements AIProvider {
                 .trim();
     }
 
-    private Boolean internalEmbedViaBridge(String data) {
-        // final int LIMIT = 150 * 1024; // 150KB limit
-        final int LIMIT = 700; // 700B limit
-        final String sourceId = UUID.randomUUID().toString().substring(0, 8);
-        final int totalLength = data.length();
-        final int totalChunks = (int) Math.ceil((double) totalLength / LIMIT);
-
-        logger.info("Content size: {} bytes. Splitting into {} chunks for Source ID: {}", 
-                    totalLength, totalChunks, sourceId);
-
-        boolean allSuccessful = true;
-
-        for (int i = 0; i < totalChunks; i++) {
-            int start = i * LIMIT;
-            int end = Math.min(start + LIMIT, totalLength);
-            String chunk = data.substring(start, end);
-
-            // Naming convention: embed_[sourceId]_[chunkIndex]_of_[total].txt
-            String fileName = String.format("embed_%s_%d_of_%d.txt", sourceId, i + 1, totalChunks);
-            
-            logger.info("Pushing chunk {}/{} to Android bridge: {}", i + 1, totalChunks, fileName);
-
-            var response = bridgeClient.post()
-                    .uri("/" + fileName)
-                    .contentType(MediaType.TEXT_PLAIN)
-                    .body(chunk)
-                    .retrieve()
-                    .toBodilessEntity();
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                logger.error("Chunk {} failed with status: {}", i + 1, response.getStatusCode());
-                allSuccessful = false;
-                break; // Stop if one chunk fails to maintain integrity
-            }
-        }
+    private Flux<String> internalStreamPrompt(String model, String prompt) {
+        final String urlSuffix = "/api/chat/completions";
+
+        StreamingChatCompletionRequest requestBody = new StreamingChatCompletionRequest(
+            model,
+            List.of(new ChatMessage("user", prompt)),
+            true
+        );
+
+        logger.info("Dispatching streaming AI Request to {}/{}", baseUrl, urlSuffix.substring(1));
+
+        return webClient.post()
+                .uri(urlSuffix)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(SSE_TYPE)
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !STREAM_DONE.equals(data.trim()))
+                .map(this::internalExtractDelta)
+                .filter(delta -> !delta.isEmpty());
+    }
 
-        if (allSuccessful) {
-            logger.info(
-                "All {} chunks for Source {} successfully pushed to Android node.",
-                totalChunks, sourceId);
+    // Each SSE chunk carries the next tokens in choices[0].delta.content.
+    private String internalExtractDelta(String chunkJson) {
+        return objectMapper.readTree(chunkJson)
+                .path("choices")
+                .path(0)
+                .path("delta")
+                .path("content")
+                .asString("");
+    }
+
+    // Connection failures, timeouts, throttling and server errors are worth another attempt; other 4xx are not.
+    private static boolean isTransientUploadFailure(Throwable ex) {
+        if (ex instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
         }
-        
-        return allSuccessful;
+        return ex instanceof WebClientRequestException || ex instanceof TimeoutException;
     }
 
-    private ChartDataSet internalExtractDataSet(String prompt, String aiResponse) {
-        logger.info("Parsing AI response for dynamic ChartDataSet.");
+    private Mono<Boolean> internalUploadChunk(String fileName, String chunk, int index, int totalChunks) {
+        int chunkBytes = chunk.getBytes(StandardCharsets.UTF_8).length;
+
+        return Mono.defer(() -> {
+                    long started = System.nanoTime();
+                    logger.debug("Pushing chunk {}/{} to Android bridge: {}", index, totalChunks, fileName);
+                    return bridgeWebClient.post()
+                            .uri("/" + fileName)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .bodyValue(chunk)
+                            .retrieve()
+                            .toBodilessEntity()
+                            .timeout(CHUNK_TIMEOUT)
+                            .doOnSuccess(response -> chunkLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+                })
+                .retryWhen(Retry.backoff(embedMaxRetries, embedRetryBackoff)
+                        .filter(OpenWebUIAdapter::isTransientUploadFailure)
+                        .doBeforeRetry(signal -> {
+                            chunkRetries.increment();
+                            logger.warn("Retrying chunk {}/{} ({}) after: {}",
+                                    index, totalChunks, fileName, signal.failure().getMessage());
+                        })
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .map(response -> {
+                    uploadedBytes.increment(chunkBytes);
+                    return true;
+                })
+                .doOnError(ex -> logger.error("Chunk {}/{} ({}) failed: {}", index, totalChunks, fileName, ex.getMessage()));
+    }
 
-        // 1. Extract CSV content
-        Pattern pattern = Pattern.compile("(?s)```(?:csv)?\\n(.*?)\\n```");
-        Matcher matcher = pattern.matcher(aiResponse);
-        String csv = matcher.find() ? matcher.group(1).trim() : aiResponse.trim();
+    /**
+     * Uploads the chunks with at most embedMaxInFlight requests in flight. File names keep the
+     * embed_[sourceId]_[chunkIndex]_of_[total].txt contract, so the bridge can order them regardless
+     * of arrival order. The first chunk that still fails after its retries cancels the rest.
+     * The sourceId is stable per source, so a re-ingestion overwrites the files of the previous one:
+     * a chunk whose hash is unchanged at the same index of a set of the same size is already in place
+     * and not uploaded again. When the number of chunks changed, the previous set is deleted once the
+     * new one is complete, so the knowledge base never holds both versions.
+     */
+    private Mono<List<String>> internalEmbedViaBridge(String sourceId, SourceBody data, List<String> previousChunkHashes) {
+        // First pass only walks the chunk boundaries, so the total is known before any chunk is uploaded.
+        return SafeRunner.futureSafe(EMBEDDING_STAGE, () -> internalCountChunks(data))
+                .flatMap(counted -> Match(counted).<Mono<List<String>>>of(
+                        Case($Success($()), totalChunks -> internalUploadChunks(sourceId, data, totalChunks, previousChunkHashes)
+                                .flatMap(chunkHashes -> internalRetractChunks(sourceId, previousChunkHashes.size(), chunkHashes.size())
+                                        .thenReturn(chunkHashes))),
+                        Case($Failure($()), ex -> Mono.<List<String>>error(ex))
+                ));
+    }
 
-        if (csv.isEmpty()) {
-            throw new IllegalStateException("CSV content missing");
+    private static String chunkFileName(String sourceId, int chunkIndex, int totalChunks) {
+        // Naming convention: embed_[sourceId]_[chunkIndex]_of_[total].txt
+        return String.format("embed_%s_%d_of_%d.txt", sourceId, chunkIndex, totalChunks);
+    }
+
+    // A set of the same size was overwritten in place; a file that is already gone counts as deleted.
+    private Mono<Void> internalRetractChunks(String sourceId, int previousTotal, int currentTotal) {
+        if (previousTotal == 0 || previousTotal == currentTotal) return Mono.empty();
+
+        logger.info("Deleting {} superseded chunks of Source ID: {}", previousTotal, sourceId);
+        return Flux.range(1, previousTotal)
+                .flatMap(chunkIndex -> bridgeWebClient.delete()
+                        .uri("/" + chunkFileName(sourceId, chunkIndex, previousTotal))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(CHUNK_TIMEOUT)
+                        .onErrorResume(WebClientResponseException.NotFound.class, ex -> Mono.empty()), embedMaxInFlight)
+                .then();
+    }
+
+    private long internalCountChunks(SourceBody data) throws IOException {
+        try (Reader reader = data.open()) {
+            return chunker.split(reader).count();
         }
+    }
+
+    // The second pass reads the body as a stream; the in-flight window bounds how many chunks are held at once.
+    private Mono<List<String>> internalUploadChunks(String sourceId, SourceBody data, long chunkCount, List<String> previousChunkHashes) {
+        final int totalChunks = (int) chunkCount;
+        final String[] chunkHashes = new String[totalChunks];
+
+        logger.info("Content size: {} bytes. Splitting into {} chunks for Source ID: {} ({} in flight)",
+                    data.sizeBytes(), totalChunks, sourceId, embedMaxInFlight);
+
+        long started = System.nanoTime();
+
+        return Flux.using(data::open, reader -> Flux.fromStream(chunker.split(reader)), OpenWebUIAdapter::closeQuietly)
+                // Requests are served on the blocking scheduler too, so file reads stay off the event loop.
+                .subscribeOn(SafeRunner.blockingScheduler())
+                .index()
+                .flatMap(indexed -> {
+                    int chunkIndex = (int) (long) indexed.getT1() + 1;
+                    String chunk = indexed.getT2();
+                    String chunkHash = ContentHash.sha256(chunk);
+                    chunkHashes[chunkIndex - 1] = chunkHash;
+                    if (previousChunkHashes.size() == totalChunks && chunkHash.equals(previousChunkHashes.get(chunkIndex - 1))) {
+                        return Mono.just(false);
+                    }
 
-        // 2. Split into lines and filter
-        List<String> lines = Arrays.stream(csv.split("\\n"))
-                .map(String::trim)
-                .filter(line -> !line.isEmpty() && line.contains(","))
-                .collect(Collectors.toList());
+                    String fileName = chunkFileName(sourceId, chunkIndex, totalChunks);
+                    return internalUploadChunk(fileName, chunk, chunkIndex, totalChunks);
+                }, embedMaxInFlight)
+                .filter(uploaded -> uploaded)
+                .count()
+                .map(uploaded -> {
+                    double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+                    logger.info(
+                        "{} of {} chunks for Source {} pushed to Android node in {} s ({} chunks/s); {} unchanged.",
+                        uploaded, totalChunks, sourceId, String.format("%.2f", seconds),
+                        String.format("%.1f", uploaded / seconds), totalChunks - uploaded);
+                    return List.of(chunkHashes);
+                });
+    }
+
+    private static void closeQuietly(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close source reader: {}", e.getMessage());
+        }
+    }
 
-        if (lines.isEmpty()) {
-            return new ChartDataSet(targetDatasetId.toString(), targetTableName, prompt, List.of());
+    /**
+     * Returns the bounds of the first fenced code block, or of the whole response when there is none.
+     */
+    private static int[] locateCsvBlock(String aiResponse) {
+        int open = aiResponse.indexOf("```");
+        if (open >= 0) {
+            int bodyStart = aiResponse.indexOf('\n', open);
+            int close = bodyStart < 0 ? -1 : aiResponse.indexOf("```", bodyStart + 1);
+            if (close > bodyStart) return new int[] {bodyStart + 1, close};
         }
+        return new int[] {0, aiResponse.length()};
+    }
 
-        // 3. Extract Headers
-        String[] headers = lines.get(0).split(",");
-        for (int i = 0; i < headers.length; i++) {
-            headers[i] = headers[i].trim().toLowerCase().replace(" ", "_"); // Sanitize for Postgres
+    private static boolean isBlankRegion(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
         }
+        return true;
+    }
 
-        // 4. Map Rows to ChartData
-        List<ChartData> points = lines.stream()
-                .skip(1) // Skip header line
-                .map(line -> {
-                    String[] values = line.split(",");
-                    Map<String, Object> columns = new java.util.HashMap<>();
-                    Map<String, String> columnTypes = new java.util.HashMap<>();
-
-                    for (int i = 0; i < headers.length; i++) {
-                        String header = headers[i];
-                        String rawValue = (i < values.length) ? values[i].trim() : "";
-                        
-                        // Populate data and infer type for each column
-                        columns.put(header, rawValue);
-                        columnTypes.put(header, inferPostgresType(rawValue));
-                    }
-                    
-                    return new ChartData(columns, columnTypes);
-                })
-                .collect(Collectors.toList());
+    private ChartDataSet internalExtractDataSet(String prompt, String aiResponse) {
+        logger.info("Parsing AI response for dynamic ChartDataSet.");
 
-            return new ChartDataSet(targetDatasetId.toString(), targetTableName, prompt, points);
+        // 1. Locate CSV content without copying the response
+        int[] bounds = locateCsvBlock(aiResponse);
+        if (isBlankRegion(aiResponse, bounds[0], bounds[1])) {
+            throw new IllegalStateException("CSV content missing");
         }
 
+        // 2. Tokenize once into a columnar table, inferring column types on the way
+        CsvColumnCollector collector = new CsvColumnCollector();
+        CsvTokenizer tokenizer = new CsvTokenizer(collector);
+        tokenizer.feed(aiResponse, bounds[0], bounds[1]);
+        tokenizer.finish();
+
+        ColumnarTable table = collector.toTable();
+        logger.info("Parsed {} rows with schema {}", table.rowCount(), table.schema());
+
+        return new ChartDataSet(targetDatasetId.toString(), targetTableName, prompt, table);
+    }
+
     /**
-     * Helper to determine the PG type during extraction
+     * Feeds completion deltas through the tokenizer as they arrive, limited to the fenced CSV block
+     * as in the blocking extraction. New rows are emitted after every delta once the fence has opened
+     * (for a response without a fence, only at its end), and the complete data set once the stream ends.
+     * The parser state is confined to this subscription, and concatMap keeps the deltas in order.
      */
-    private String inferPostgresType(String value) {
-        if (value == null || value.isEmpty()) return "TEXT";
-        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return "BOOLEAN";
-        if (value.matches("\\d{4}-\\d{2}-\\d{2}")) return "DATE";
-        if (value.matches("-?\\d+(\\.\\d+)?")) return "NUMERIC";
-        return "TEXT";
+    private Flux<ChartStreamEvent> internalExtractIncrementally(String prompt, Flux<String> csvDeltas) {
+        return Flux.defer(() -> {
+            CsvFenceFilter fence = new CsvFenceFilter();
+            CsvColumnCollector collector = new CsvColumnCollector();
+            List<List<String>> pending = new ArrayList<>();
+            boolean[] headerSent = {false};
+
+            CsvTokenizer tokenizer = new CsvTokenizer(fields -> {
+                boolean isDataRow = collector.hasHeader();
+                collector.onRow(fields);
+                if (isDataRow && fields.size() > 1) pending.add(List.copyOf(fields));
+            });
+
+            return csvDeltas
+                    .concatMap(delta -> {
+                        tokenizer.feed(fence.feed(delta));
+                        return Flux.fromIterable(internalDrainUpdates(collector, pending, headerSent));
+                    })
+                    .concatWith(Flux.<ChartStreamEvent>defer(() -> {
+                        tokenizer.feed(fence.finish());
+                        tokenizer.finish();
+                        if (!collector.hasHeader()) {
+                            return Flux.<ChartStreamEvent>error(new IllegalStateException("CSV content missing"));
+                        }
+
+                        List<ChartStreamEvent> updates = internalDrainUpdates(collector, pending, headerSent);
+                        ChartDataSet dataSet = new ChartDataSet(
+                                targetDatasetId.toString(), targetTableName, prompt, collector.toTable());
+                        logger.info("Streamed extraction finished with {} rows", dataSet.table().rowCount());
+                        updates.add(new ChartStreamEvent.DataReady(dataSet));
+                        return Flux.fromIterable(updates);
+                    }));
+        });
+    }
+
+    private static List<ChartStreamEvent> internalDrainUpdates(
+            CsvColumnCollector collector, List<List<String>> pending, boolean[] headerSent) {
+        List<ChartStreamEvent> updates = new ArrayList<>(2);
+        if (!headerSent[0] && collector.hasHeader()) {
+            updates.add(new ChartStreamEvent.Header(collector.headers()));
+            headerSent[0] = true;
+        }
+        if (!pending.isEmpty()) {
+            updates.add(new ChartStreamEvent.Rows(List.copyOf(pending), collector.rowCount()));
+            pending.clear();
+        }
+        return updates;
     }
 
     @Override
     public Mono<Try<Boolean>> authenticate(String username, String password) {
-        return SafeRunner.futureSafe(() -> internalAuthenticate(username, password));
+        return SafeRunner.futureSafe(AI_STAGE, () -> internalAuthenticate(username, password));
     }
 
     @Override
     public Mono<Try<String>> sendPromptToAI(String model, String prompt, List<String> contextData) {
-        return SafeRunner.futureSafe(() -> internalSendPrompt(model, prompt, contextData));
+        return SafeRunner.futureSafe(AI_STAGE, () -> internalSendPrompt(model, prompt, contextData));
+    }
+
+    @Override
+    public Flux<Try<String>> streamPromptToAI(String model, String prompt, List<String> contextData) {
+        return internalStreamPrompt(model, prompt)
+                .map(Try::success)
+                .onErrorResume(ex -> {
+                    logger.error("Streaming completion failed: {}", ex.getMessage());
+                    return Flux.just(Try.<String>failure(ex));
+                });
+    }
+
+    @Override
+    public Flux<Try<ChartStreamEvent>> extractChartDataSetIncrementally(String prompt, Flux<String> csvDeltas) {
+        return internalExtractIncrementally(prompt, csvDeltas)
+                .map(Try::success)
+                .onErrorResume(ex -> Flux.just(Try.<ChartStreamEvent>failure(ex)));
     }
 
     @Override
@@ -235,6 +467,18 @@ public class OpenWebUIAdapter implements AIProvider {
 
     @Override
     public Mono<Try<Boolean>> embedData(String data) {
-        return SafeRunner.futureSafe(() -> internalEmbedViaBridge(data));
+        // Ad-hoc content has no source to be re-ingested from, so it gets a one-off id.
+        String sourceId = UUID.randomUUID().toString().substring(0, 8);
+        return internalEmbedViaBridge(sourceId, new SourceBody.InMemory(data), List.of())
+                .map(chunkHashes -> Try.success(true))
+                .onErrorResume(ex -> Mono.just(Try.<Boolean>failure(ex)));
+    }
+
+    @Override
+    public Mono<Try<List<String>>> embedChangedChunks(String sourceUrl, SourceBody data, List<String> previousChunkHashes) {
+        String sourceId = ContentHash.sha256(sourceUrl).substring(0, 12);
+        return internalEmbedViaBridge(sourceId, data, previousChunkHashes)
+                .map(Try::success)
+                .onErrorResume(ex -> Mono.just(Try.<List<String>>failure(ex)));
     }
 }
@@ -0,0 +1,140 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.model.ChartJob;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartJobStore;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps chart jobs in Postgres. A partial unique index on the request hash of queued and running jobs
+ * lets concurrent duplicate submissions settle on one job without any locking on our side.
+ * Each job records the instance that runs it, so a restarting instance only fails its own unfinished jobs.
+ */
+public class PostgresChartJobStore implements ChartJobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresChartJobStore.class);
+    private static final String POSTGRES_STAGE = "postgres";
+    private static final String ACTIVE = "status IN ('QUEUED', 'RUNNING')";
+
+    private static final RowMapper<ChartJob> JOB_MAPPER = (rs, rowNum) -> new ChartJob(
+            rs.getString("job_id"),
+            rs.getString("request_hash"),
+            ChartJob.Status.valueOf(rs.getString("status")),
+            rs.getString("stage"),
+            (Integer) rs.getObject("chart_id"),
+            rs.getString("error"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getTimestamp("updated_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock schemaLock = new ReentrantLock();
+    private volatile boolean schemaReady;
+
+    public PostgresChartJobStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private void ensureSchema() {
+        if (schemaReady) return;
+        schemaLock.lock();
+        try {
+            if (schemaReady) return;
+            jdbcTemplate.execute("""
+                    CREATE TABLE IF NOT EXISTS chart_jobs (
+                        job_id TEXT PRIMARY KEY,
+                        request_hash TEXT NOT NULL,
+                        owner TEXT,
+                        prompt TEXT,
+                        model_name TEXT,
+                        status TEXT NOT NULL,
+                        stage TEXT,
+                        chart_id INTEGER,
+                        error TEXT,
+                        created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+                        updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+                    )""");
+            jdbcTemplate.execute(
+                    "CREATE UNIQUE INDEX IF NOT EXISTS chart_jobs_active_request ON chart_jobs (request_hash) WHERE " + ACTIVE);
+            schemaReady = true;
+        } finally {
+            schemaLock.unlock();
+        }
+    }
+
+    private ChartJob internalCreateOrFindActive(String jobId, String requestHash, String owner, String prompt, String modelName) {
+        ensureSchema();
+
+        // The active duplicate may finish between the insert and the lookup; the second round then inserts.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            List<ChartJob> inserted = jdbcTemplate.query("""
+                    INSERT INTO chart_jobs (job_id, request_hash, owner, prompt, model_name, status, stage)
+                    VALUES (?, ?, ?, ?, ?, 'QUEUED', 'queued')
+                    ON CONFLICT (request_hash) WHERE %s DO NOTHING
+                    RETURNING *""".formatted(ACTIVE),
+                    JOB_MAPPER, jobId, requestHash, owner, prompt, modelName);
+            if (!inserted.isEmpty()) return inserted.get(0);
+
+            List<ChartJob> active = jdbcTemplate.query(
+                    "SELECT * FROM chart_jobs WHERE request_hash = ? AND " + ACTIVE, JOB_MAPPER, requestHash);
+            if (!active.isEmpty()) {
+                logger.info("Duplicate submission joined active job {}", active.get(0).id());
+                return active.get(0);
+            }
+        }
+        throw new IllegalStateException("Could not register job for request " + requestHash);
+    }
+
+    private Optional<ChartJob> internalFind(String jobId) {
+        ensureSchema();
+        return jdbcTemplate.query("SELECT * FROM chart_jobs WHERE job_id = ?", JOB_MAPPER, jobId)
+                .stream()
+                .findFirst();
+    }
+
+    private Boolean internalUpdate(String jobId, ChartJob.Status status, String stage, Integer chartId, String error) {
+        ensureSchema();
+        int updated = jdbcTemplate.update("""
+                UPDATE chart_jobs
+                SET status = ?, stage = COALESCE(?, stage), chart_id = COALESCE(?, chart_id), error = COALESCE(?, error), updated_at = now()
+                WHERE job_id = ?""",
+                status.name(), stage, chartId, error, jobId);
+        return updated > 0;
+    }
+
+    private Integer internalFailUnfinished(String owner, String reason) {
+        ensureSchema();
+        int failed = jdbcTemplate.update(
+                "UPDATE chart_jobs SET status = 'FAILED', error = ?, updated_at = now() WHERE owner = ? AND " + ACTIVE, reason, owner);
+        if (failed > 0) logger.warn("Marked {} unfinished chart jobs of {} as failed: {}", failed, owner, reason);
+        return failed;
+    }
+
+    @Override
+    public Mono<Try<ChartJob>> createOrFindActive(String jobId, String requestHash, String owner, String prompt, String modelName) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalCreateOrFindActive(jobId, requestHash, owner, prompt, modelName));
+    }
+
+    @Override
+    public Mono<Try<Optional<ChartJob>>> find(String jobId) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalFind(jobId));
+    }
+
+    @Override
+    public Mono<Try<Boolean>> update(String jobId, ChartJob.Status status, String stage, Integer chartId, String error) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalUpdate(jobId, status, stage, chartId, error));
+    }
+
+    @Override
+    public Mono<Try<Integer>> failUnfinished(String owner, String reason) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalFailUnfinished(owner, reason));
+    }
+}
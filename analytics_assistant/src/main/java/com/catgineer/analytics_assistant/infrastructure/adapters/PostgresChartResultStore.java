@@ -0,0 +1,133 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartResultStore;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps generated chart data in Postgres as CSV text, so cached results survive restarts.
+ * Loading re-parses the CSV, which re-infers the same column types the original extraction produced.
+ */
+public class PostgresChartResultStore implements ChartResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresChartResultStore.class);
+    private static final String POSTGRES_STAGE = "postgres";
+    private static final String CACHE_TABLE = "chart_result_cache";
+
+    private final JdbcTemplate jdbcTemplate;
+    // A lock rather than synchronized, so virtual threads waiting on the DDL do not pin their carriers.
+    private final ReentrantLock schemaLock = new ReentrantLock();
+    private volatile boolean schemaReady;
+
+    public PostgresChartResultStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private void ensureSchema() {
+        if (schemaReady) return;
+        schemaLock.lock();
+        try {
+            if (schemaReady) return;
+            jdbcTemplate.execute("""
+                    CREATE TABLE IF NOT EXISTS %s (
+                        cache_key TEXT PRIMARY KEY,
+                        dataset_id TEXT,
+                        table_name TEXT,
+                        source_prompt TEXT,
+                        csv TEXT NOT NULL,
+                        created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+                    )""".formatted(CACHE_TABLE));
+            schemaReady = true;
+        } finally {
+            schemaLock.unlock();
+        }
+    }
+
+    private String internalRender(ColumnarTable table) throws IOException {
+        StringBuilder header = new StringBuilder();
+        List<ColumnDefinition> schema = table.schema();
+        for (int i = 0; i < schema.size(); i++) {
+            if (i > 0) header.append(',');
+            CsvRowReader.appendValue(header, schema.get(i).name());
+        }
+        header.append('\n');
+
+        StringWriter csv = new StringWriter();
+        csv.append(header);
+        try (CsvRowReader rows = new CsvRowReader(table.rows(), table.columnCount())) {
+            rows.transferTo(csv);
+        }
+        return csv.toString();
+    }
+
+    private ColumnarTable internalParse(String csv) {
+        CsvColumnCollector collector = new CsvColumnCollector();
+        CsvTokenizer tokenizer = new CsvTokenizer(collector);
+        tokenizer.feed(csv);
+        tokenizer.finish();
+        return collector.toTable();
+    }
+
+    private Optional<ChartDataSet> internalLoad(String cacheKey, Duration maxAge) {
+        ensureSchema();
+        Timestamp oldest = Timestamp.from(Instant.now().minus(maxAge));
+
+        List<ChartDataSet> found = jdbcTemplate.query(
+                "SELECT dataset_id, table_name, source_prompt, csv FROM " + CACHE_TABLE
+                        + " WHERE cache_key = ? AND created_at > ?",
+                (rs, rowNum) -> new ChartDataSet(
+                        rs.getString("dataset_id"),
+                        rs.getString("table_name"),
+                        rs.getString("source_prompt"),
+                        internalParse(rs.getString("csv"))),
+                cacheKey, oldest);
+
+        logger.debug("Persistent chart cache lookup for {}: {}", cacheKey, found.isEmpty() ? "miss" : "hit");
+        return found.stream().findFirst();
+    }
+
+    private Boolean internalSave(String cacheKey, ChartDataSet dataSet) throws IOException {
+        ensureSchema();
+        String csv = internalRender(dataSet.table());
+
+        jdbcTemplate.update("""
+                INSERT INTO %s (cache_key, dataset_id, table_name, source_prompt, csv, created_at)
+                VALUES (?, ?, ?, ?, ?, now())
+                ON CONFLICT (cache_key) DO UPDATE SET
+                    dataset_id = EXCLUDED.dataset_id,
+                    table_name = EXCLUDED.table_name,
+                    source_prompt = EXCLUDED.source_prompt,
+                    csv = EXCLUDED.csv,
+                    created_at = EXCLUDED.created_at""".formatted(CACHE_TABLE),
+                cacheKey, dataSet.id(), dataSet.tableName(), dataSet.sourcePrompt(), csv);
+
+        logger.info("Stored {} rows in persistent chart cache under {}", dataSet.table().rowCount(), cacheKey);
+        return true;
+    }
+
+    @Override
+    public Mono<Try<Optional<ChartDataSet>>> load(String cacheKey, Duration maxAge) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalLoad(cacheKey, maxAge));
+    }
+
+    @Override
+    public Mono<Try<Boolean>> save(String cacheKey, ChartDataSet dataSet) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalSave(cacheKey, dataSet));
+    }
+}
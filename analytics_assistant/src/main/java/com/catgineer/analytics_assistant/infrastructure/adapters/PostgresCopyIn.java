@@ -0,0 +1,64 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * COPY FROM STDIN through the PostgreSQL driver's CopyManager.
+ * The driver stays a runtime dependency, so its copy API is looked up when first used rather than linked at compile time.
+ */
+final class PostgresCopyIn {
+
+    private static final class Api {
+        private static final Class<?> PG_CONNECTION;
+        private static final MethodHandle GET_COPY_API;
+        private static final MethodHandle COPY_IN;
+
+        static {
+            try {
+                ClassLoader loader = PostgresCopyIn.class.getClassLoader();
+                PG_CONNECTION = Class.forName("org.postgresql.PGConnection", false, loader);
+                Class<?> copyManager = Class.forName("org.postgresql.copy.CopyManager", false, loader);
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                GET_COPY_API = lookup.findVirtual(PG_CONNECTION, "getCopyAPI", MethodType.methodType(copyManager));
+                COPY_IN = lookup.findVirtual(copyManager, "copyIn", MethodType.methodType(long.class, String.class, Reader.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    private final Object copyManager;
+
+    private PostgresCopyIn(Object copyManager) {
+        this.copyManager = copyManager;
+    }
+
+    static PostgresCopyIn on(Connection connection) throws SQLException {
+        try {
+            return new PostgresCopyIn(Api.GET_COPY_API.invoke(connection.unwrap(Api.PG_CONNECTION)));
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Could not obtain the COPY API", e);
+        }
+    }
+
+    /**
+     * Runs the COPY statement, streaming its input from the reader; returns the number of rows copied.
+     */
+    long copyIn(String copySql, Reader input) throws SQLException, IOException {
+        try {
+            return (long) Api.COPY_IN.invoke(copyManager, copySql, input);
+        } catch (SQLException | IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("COPY failed", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.model.SourceLedgerEntry;
+import com.catgineer.analytics_assistant.infrastructure.ports.IngestionLedger;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Mono;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records per source the HTTP validators, the content hash and the hash of every embedded chunk.
+ * A source and its chunks are replaced in one transaction, so the ledger never mixes two ingestions.
+ */
+public class PostgresIngestionLedger implements IngestionLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresIngestionLedger.class);
+    private static final String POSTGRES_STAGE = "postgres";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock schemaLock = new ReentrantLock();
+    private volatile boolean schemaReady;
+
+    public PostgresIngestionLedger(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private void ensureSchema() {
+        if (schemaReady) return;
+        schemaLock.lock();
+        try {
+            if (schemaReady) return;
+            jdbcTemplate.execute("""
+                    CREATE TABLE IF NOT EXISTS ingestion_sources (
+                        source_url TEXT PRIMARY KEY,
+                        etag TEXT,
+                        last_modified TEXT,
+                        content_hash TEXT NOT NULL,
+                        ingested_at TIMESTAMPTZ NOT NULL DEFAULT now()
+                    )""");
+            jdbcTemplate.execute("""
+                    CREATE TABLE IF NOT EXISTS ingestion_chunks (
+                        source_url TEXT NOT NULL REFERENCES ingestion_sources (source_url) ON DELETE CASCADE,
+                        chunk_index INTEGER NOT NULL,
+                        chunk_hash TEXT NOT NULL,
+                        PRIMARY KEY (source_url, chunk_index)
+                    )""");
+            schemaReady = true;
+        } finally {
+            schemaLock.unlock();
+        }
+    }
+
+    private Optional<SourceLedgerEntry> internalFind(String sourceUrl) {
+        ensureSchema();
+
+        List<String[]> sources = jdbcTemplate.query(
+                "SELECT etag, last_modified, content_hash FROM ingestion_sources WHERE source_url = ?",
+                (rs, rowNum) -> new String[] {rs.getString("etag"), rs.getString("last_modified"), rs.getString("content_hash")},
+                sourceUrl);
+        if (sources.isEmpty()) return Optional.empty();
+
+        List<String> chunkHashes = jdbcTemplate.queryForList(
+                "SELECT chunk_hash FROM ingestion_chunks WHERE source_url = ? ORDER BY chunk_index",
+                String.class, sourceUrl);
+
+        String[] source = sources.get(0);
+        return Optional.of(new SourceLedgerEntry(sourceUrl, source[0], source[1], source[2], chunkHashes));
+    }
+
+    private Boolean internalRecord(SourceLedgerEntry entry) {
+        ensureSchema();
+
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement upsert = connection.prepareStatement("""
+                         INSERT INTO ingestion_sources (source_url, etag, last_modified, content_hash, ingested_at)
+                         VALUES (?, ?, ?, ?, now())
+                         ON CONFLICT (source_url) DO UPDATE SET
+                             etag = EXCLUDED.etag,
+                             last_modified = EXCLUDED.last_modified,
+                             content_hash = EXCLUDED.content_hash,
+                             ingested_at = EXCLUDED.ingested_at""");
+                 PreparedStatement clear = connection.prepareStatement(
+                         "DELETE FROM ingestion_chunks WHERE source_url = ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO ingestion_chunks (source_url, chunk_index, chunk_hash) VALUES (?, ?, ?)")) {
+
+                upsert.setString(1, entry.sourceUrl());
+                upsert.setString(2, entry.etag());
+                upsert.setString(3, entry.lastModified());
+                upsert.setString(4, entry.contentHash());
+                upsert.executeUpdate();
+
+                clear.setString(1, entry.sourceUrl());
+                clear.executeUpdate();
+
+                List<String> chunkHashes = entry.chunkHashes();
+                for (int i = 0; i < chunkHashes.size(); i++) {
+                    insert.setString(1, entry.sourceUrl());
+                    insert.setInt(2, i);
+                    insert.setString(3, chunkHashes.get(i));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                connection.commit();
+                logger.info("Ledger updated for {} ({} chunks)", entry.sourceUrl(), chunkHashes.size());
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                logger.error("Ledger update failed for {}: {}", entry.sourceUrl(), e.getMessage());
+                return false;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Try<Optional<SourceLedgerEntry>>> find(String sourceUrl) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalFind(sourceUrl));
+    }
+
+    @Override
+    public Mono<Try<Boolean>> record(SourceLedgerEntry entry) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalRecord(entry));
+    }
+}
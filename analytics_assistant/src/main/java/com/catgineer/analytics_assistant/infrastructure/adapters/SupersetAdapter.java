@@ -1,31 +1,42 @@
 package com.catgineer.analytics_assistant.infrastructure.adapters;
 
 import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.TableLoad;
 import com.catgineer.analytics_assistant.infrastructure.ports.VisualisationProvider;
 import tools.jackson.databind.JsonNode;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class SupersetAdapter implements VisualisationProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(SupersetAdapter.class);
+    private static final String STAGING_SUFFIX = "__staging";
+    private static final String POSTGRES_STAGE = "postgres";
+    private static final String SUPERSET_STAGE = "superset";
     private final JdbcTemplate jdbcTemplate;
 
-    private String targetDatasetId;
-    private String targetTableName;
-
     private RestClient restClient;
-    private String accessToken;
+    private final SupersetTokenManager tokenManager;
 
     private String username;
     private String password;
@@ -36,17 +47,15 @@ public class SupersetAdapter implements VisualisationProvider {
         String baseUrl,
         String username,
         String password,
-        String targetTableName,
-        String targetDatasetId
+        Duration tokenRefreshAhead
     ) {
         this.jdbcTemplate = jdbcTemplate;
-        this.restClient = RestClient.builder()
+        this.restClient = builder
                 .baseUrl(baseUrl)
                 .build();
         this.username = username;
         this.password = password;
-        this.targetTableName = targetTableName;
-        this.targetDatasetId = targetDatasetId;
+        this.tokenManager = new SupersetTokenManager(this::authenticate, tokenRefreshAhead);
 
         logger.info("SupersetAdapter initialized on Virtual Threads with base URL: {}", baseUrl);
     }
@@ -64,115 +73,185 @@ public class SupersetAdapter implements VisualisationProvider {
             throw new RuntimeException("Superset auth failed: No token in response");
         }
         
-        this.accessToken = res.get("access_token").asString("");
-        return this.accessToken;
+        return res.get("access_token").asString("");
     }
 
-    private Boolean internalOverwriteTable(List<Map<String, Object>> data) {
-        if (data.isEmpty()) {
-            logger.warn("No data for table {}", targetTableName);
-            return true;
-        }
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
 
-        // Quote the table name for all operations
-        final String quotedTable = "\"" + targetTableName + "\"";
+    /**
+     * Bulk loads the rows into a staging table through the COPY protocol and swaps it in.
+     * The swap runs in the same transaction as the load, so readers always see a complete table.
+     * Columns are created with their resolved types, and COPY parses each field into that type server-side.
+     */
+    private Boolean internalOverwriteTable(String targetTableName, List<ColumnDefinition> schema, List<ColumnarTable.RowView> rows) {
+        return internalOverwriteTables(List.of(new TableLoad(targetTableName, schema, rows)));
+    }
 
-        jdbcTemplate.execute("DROP TABLE IF EXISTS " + quotedTable);
-        logger.info("Table {} dropped successfully", targetTableName);
+    /**
+     * Loads and swaps in all tables on one connection and in one transaction, so a batch costs a single
+     * round of connection setup and commit, and a failure in any table rolls back every one of them.
+     * Every table is rebuilt, including those without rows: slot tables are shared between sessions,
+     * so keeping the old contents would show the previous lessee's data under the new chart.
+     */
+    private Boolean internalOverwriteTables(List<TableLoad> loads) {
+        if (loads.isEmpty()) return true;
+
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (Statement statement = connection.createStatement()) {
+                PostgresCopyIn copyIn = PostgresCopyIn.on(connection);
+                for (TableLoad load : loads) {
+                    internalLoadTable(statement, copyIn, load);
+                }
+                connection.commit();
+
+                logger.info("Tables {} swapped in successfully", loads.stream().map(TableLoad::tableName).toList());
+                return true;
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                logger.error("COPY load failed for tables {}: {}", loads.stream().map(TableLoad::tableName).toList(), e.getMessage());
+                return false;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
 
-        final Map<String, Object> firstRow = data.get(0);
-        final List<String> stableKeys = List.copyOf(firstRow.keySet());
+    private void internalLoadTable(Statement statement, PostgresCopyIn copyIn, TableLoad load) throws SQLException, IOException {
+        final String quotedTable = quoteIdentifier(load.tableName());
+        final String quotedStaging = quoteIdentifier(load.tableName() + STAGING_SUFFIX);
+        List<ColumnDefinition> schema = load.schema();
 
-        String columnsDefinition = stableKeys.stream()
-                .map(k -> "\"" + k + "\" " + "TEXT")
+        String columnsDefinition = schema.stream()
+                .map(c -> quoteIdentifier(c.name()) + " " + c.type().sqlName())
                 .collect(Collectors.joining(", "));
         logger.info("Columns definition for table creation: {}", columnsDefinition);
 
-        jdbcTemplate.execute("CREATE TABLE " + quotedTable + " (" + columnsDefinition + ")");
-        logger.info("Table {} created successfully", targetTableName);
-
-        // Debug SELECT to verify schema existence
-        String selectQuery = "SELECT * FROM " + quotedTable + " LIMIT 1";
-        List<Map<String, Object>> results = jdbcTemplate.queryForList(selectQuery);
-        logger.info("Fetched {} rows from table {}", results.size(), targetTableName);
-
-        // Quote column names for the INSERT statement
-        String quotedColumnNames = stableKeys.stream()
-                .map(k -> "\"" + k + "\"")
+        String quotedColumnNames = schema.stream()
+                .map(c -> quoteIdentifier(c.name()))
                 .collect(Collectors.joining(", "));
-        logger.info("Column names for insertion: {}", quotedColumnNames);
+        String copySql = String.format("COPY %s (%s) FROM STDIN WITH (FORMAT csv)", quotedStaging, quotedColumnNames);
 
-        String placeholders = stableKeys.stream().map(k -> "?").collect(Collectors.joining(","));
-        
-        // Final SQL without the 'TABLE' keyword and with quoted identifiers
-        String sql = String.format("INSERT INTO %s (%s) VALUES (%s)", quotedTable, quotedColumnNames, placeholders);
-        logger.info("Insertion query: {}", sql);
-
-        // Map values strictly following the stable keys to prevent alignment issues
-        List<Object[]> batchArgs = data.stream()
-                .map(row -> {
-                    Object[] values = new Object[stableKeys.size()];
-                    for (int i = 0; i < stableKeys.size(); i++) {
-                        values[i] = row.get(stableKeys.get(i));
-                    }
-                    return values;
-                })
-                .toList();
+        statement.execute("DROP TABLE IF EXISTS " + quotedStaging);
+        statement.execute("CREATE TABLE " + quotedStaging + " (" + columnsDefinition + ")");
 
-        logger.info("Data for insertion: {}", batchArgs.stream().map(java.util.Arrays::toString).toList());
-        
-        try {
-            jdbcTemplate.batchUpdate(sql, batchArgs);
-            logger.info("Batch update successful for table {}", targetTableName);
-            return true;
-        } catch (Exception e) {
-            logger.error("JDBC Batch Update failed for table {}: {}", targetTableName, e.getMessage());
-            return false;
+        if (load.rows().isEmpty() || schema.isEmpty()) {
+            logger.warn("No data for table {}, swapping in an empty table", load.tableName());
+        } else {
+            long copied = copyIn.copyIn(copySql, new CsvRowReader(load.rows(), schema.size()));
+            logger.info("Copied {} rows into staging table for {}", copied, load.tableName());
         }
+
+        statement.execute("DROP TABLE IF EXISTS " + quotedTable);
+        statement.execute("ALTER TABLE " + quotedStaging + " RENAME TO " + quotedTable);
     }
 
-    private String inferPostgresType(String value) {
-        if (value == null || value.equalsIgnoreCase("null")) return "TEXT";
-        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return "BOOLEAN";
-        if (value.matches("\\d{4}-\\d{2}-\\d{2}")) return "DATE";
-        if (value.matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}.*")) return "TIMESTAMP";
-        if (value.matches("-?\\d+(\\.\\d+)?")) return "NUMERIC";
-        return "TEXT";
+    /**
+     * Has Superset re-read the columns of the physical table into the existing dataset, so the dataset id,
+     * its charts and its cached metadata survive the reload.
+     */
+    private Boolean internalRefresh(Integer datasetId) {
+        tokenManager.withToken(token -> restClient.put()
+            .uri("/api/v1/dataset/{id}/refresh", datasetId)
+            .headers(h -> h.setBearerAuth(token))
+            .retrieve()
+            .toBodilessEntity());
+        logger.info("Dataset {} refreshed", datasetId);
+        return true;
     }
 
-    private Boolean internalRefresh() {
-        if (accessToken == null) authenticate();
-        restClient.delete()
-            .uri("/api/v1/dataset/{id}", targetDatasetId)
-            .headers(h -> h.setBearerAuth(accessToken))
+    private Optional<Integer> internalFindDataset(String tableName) {
+        String query = "(filters:!((col:table_name,opr:eq,value:'" + tableName.replace("'", "!'") + "')))";
+        JsonNode res = tokenManager.withToken(token -> restClient.get()
+            .uri("/api/v1/dataset/?q={q}", query)
+            .headers(h -> h.setBearerAuth(token))
             .retrieve()
-            .toBodilessEntity();
+            .body(JsonNode.class));
 
-        restClient.post()
+        if (res == null) return Optional.empty();
+        for (JsonNode dataset : res.path("result")) {
+            if (dataset.path("id").isNumber()) return Optional.of(dataset.path("id").asInt());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Makes sure the table exists (empty until its first load) and returns the id of its dataset,
+     * registering one when Superset has none yet. Safe to repeat, e.g. after a restart.
+     */
+    private Integer internalRegisterDataset(String tableName) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + quoteIdentifier(tableName) + " (placeholder TEXT)");
+
+        Optional<Integer> existing = internalFindDataset(tableName);
+        if (existing.isPresent()) {
+            logger.info("Table {} already has dataset {}", tableName, existing.get());
+            return existing.get();
+        }
+
+        JsonNode res = tokenManager.withToken(token -> restClient.post()
             .uri("/api/v1/dataset/")
-            .headers(h -> h.setBearerAuth(accessToken))
+            .headers(h -> h.setBearerAuth(token))
             .body(Map.of(
                 "schema", "public",
-                "table_name", targetTableName,
+                "table_name", tableName,
                 "database", "1"
             ))
             .retrieve()
-            .onStatus(HttpStatusCode::isError, (req, res) -> {
-                String errorBody = new String(res.getBody().readAllBytes(), StandardCharsets.UTF_8);
-                logger.error("Metadata sync failed for dataset {}. Response: {}", targetDatasetId, errorBody);
+            .onStatus(HttpStatusCode::isError, (req, response) -> {
+                String errorBody = new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                logger.error("Dataset registration failed for table {}. Response: {}", tableName, errorBody);
+                // A rejected token is retried with a fresh one.
+                if (response.getStatusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+                    throw HttpClientErrorException.create(response.getStatusCode(), response.getStatusText(), response.getHeaders(), null, null);
+                }
+                throw new IllegalStateException("Superset refused dataset for table " + tableName + ": " + response.getStatusCode());
                 })
-            .body(JsonNode.class);
+            .body(JsonNode.class));
+
+        int datasetId = (res != null) ? res.path("id").asInt(-1) : -1;
+        if (datasetId == -1) throw new RuntimeException("Dataset registration failed for table " + tableName);
 
+        logger.info("Table {} registered as dataset {}", tableName, datasetId);
+        return datasetId;
+    }
+
+    // A dataset that is already gone counts as dropped; without an id, the table's dataset is looked up.
+    private Boolean internalDropDataset(String tableName, Integer knownDatasetId) {
+        Integer datasetId = knownDatasetId != null ? knownDatasetId : internalFindDataset(tableName).orElse(null);
+        if (datasetId != null) {
+            try {
+                tokenManager.withToken(token -> restClient.delete()
+                    .uri("/api/v1/dataset/{id}", datasetId)
+                    .headers(h -> h.setBearerAuth(token))
+                    .retrieve()
+                    .toBodilessEntity());
+            } catch (HttpClientErrorException.NotFound e) {
+                logger.info("Dataset {} was already deleted", datasetId);
+            }
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + quoteIdentifier(tableName));
+        logger.info("Dropped dataset {} and table {}", datasetId, tableName);
         return true;
     }
 
+    private List<String> internalListPoolTables(String baseTableName) {
+        String prefix = baseTableName + "_";
+        return jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = 'public' AND left(table_name, ?) = ?",
+                String.class, prefix.length(), prefix)
+            .stream()
+            .filter(name -> name.length() > prefix.length() && name.substring(prefix.length()).chars().allMatch(Character::isDigit))
+            .toList();
+    }
 
     private Integer internalCreateChart(Integer datasetId, String name, String type, String paramsJson) {
-        if (accessToken == null) authenticate();
-        
-        JsonNode res = restClient.post()
+        JsonNode res = tokenManager.withToken(token -> restClient.post()
                 .uri("/api/v1/chart/")
-                .headers(h -> h.setBearerAuth(accessToken))
+                .headers(h -> h.setBearerAuth(token))
                 .body(Map.of(
                     "slice_name", name,
                     "viz_type", type,
@@ -181,7 +260,7 @@ public class SupersetAdapter implements VisualisationProvider {
                     "params", paramsJson
                 ))
                 .retrieve()
-                .body(JsonNode.class);
+                .body(JsonNode.class));
         
         int chartId = (res != null) ? res.path("id").asInt(-1) : -1;
         if (chartId == -1) throw new RuntimeException("Chart creation failed");
@@ -190,21 +269,37 @@ public class SupersetAdapter implements VisualisationProvider {
     }
 
     @Override
-    public Mono<Try<Boolean>> overwritePhysicalTable(String tableName, List<Map<String, Object>> data) {
-        // TODO: Fix signature.
-        // We now ignore the tableName parameter in favor of the injected targetTableName
-        return SafeRunner.futureSafe(() -> internalOverwriteTable(data));
+    public Mono<Try<Boolean>> overwritePhysicalTable(String tableName, List<ColumnDefinition> schema, List<ColumnarTable.RowView> rows) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalOverwriteTable(tableName, schema, rows));
+    }
+
+    @Override
+    public Mono<Try<Boolean>> overwritePhysicalTables(List<TableLoad> loads) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalOverwriteTables(loads));
     }
 
     @Override
     public Mono<Try<Boolean>> refreshDataset(Integer datasetId) {
-        // TODO: Fix signature.
-        // We ignore the datasetId parameter in favor of the injected targetDatasetId
-        return SafeRunner.futureSafe(this::internalRefresh);
+        return SafeRunner.futureSafe(SUPERSET_STAGE, () -> internalRefresh(datasetId));
     }
 
     @Override
     public Mono<Try<Integer>> createChart(Integer datasetId, String chartName, String vizType, String paramsJson) {
-        return SafeRunner.futureSafe(() -> internalCreateChart(datasetId, chartName, vizType, paramsJson));
+        return SafeRunner.futureSafe(SUPERSET_STAGE, () -> internalCreateChart(datasetId, chartName, vizType, paramsJson));
+    }
+
+    @Override
+    public Mono<Try<Integer>> registerDataset(String tableName) {
+        return SafeRunner.futureSafe(SUPERSET_STAGE, () -> internalRegisterDataset(tableName));
+    }
+
+    @Override
+    public Mono<Try<Boolean>> dropDataset(String tableName, Integer datasetId) {
+        return SafeRunner.futureSafe(SUPERSET_STAGE, () -> internalDropDataset(tableName, datasetId));
+    }
+
+    @Override
+    public Mono<Try<List<String>>> listPoolTables(String baseTableName) {
+        return SafeRunner.futureSafe(POSTGRES_STAGE, () -> internalListPoolTables(baseTableName));
     }
 }
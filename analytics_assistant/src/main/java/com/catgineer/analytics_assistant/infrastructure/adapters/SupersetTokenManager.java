@@ -0,0 +1,123 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the Superset access token and logs in again only when it is about to expire.
+ * The expiry is read from the token's JWT exp claim. Within the refresh window one caller logs in
+ * while the others keep using the still valid token; once it has expired, callers wait for that one login.
+ * A request rejected with 401 drops its token and is retried once with a fresh one.
+ */
+final class SupersetTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SupersetTokenManager.class);
+
+    // Superset's default JWT_ACCESS_TOKEN_EXPIRES, for tokens that carry no exp claim.
+    private static final Duration FALLBACK_LIFETIME = Duration.ofMinutes(15);
+
+    private record Token(String value, Instant expiresAt) {}
+
+    private final Supplier<String> login;
+    private final Duration refreshAhead;
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ReentrantLock loginLock = new ReentrantLock(); // Does not pin the virtual threads waiting on it.
+    private final Counter logins;
+    private final Counter unauthorizedRetries;
+    private volatile Token current;
+
+    SupersetTokenManager(Supplier<String> login, Duration refreshAhead) {
+        this.login = login;
+        this.refreshAhead = refreshAhead;
+        this.logins = Counter.builder("superset.auth.logins").register(Metrics.globalRegistry);
+        this.unauthorizedRetries = Counter.builder("superset.auth.unauthorized_retries").register(Metrics.globalRegistry);
+    }
+
+    String token() {
+        Token token = current;
+        Instant now = Instant.now();
+
+        if (token != null && now.isBefore(token.expiresAt().minus(refreshAhead))) {
+            return token.value();
+        }
+        if (token != null && now.isBefore(token.expiresAt())) {
+            // Refresh ahead of expiry; if another caller already does, the current token is still good.
+            if (!loginLock.tryLock()) return token.value();
+        } else {
+            loginLock.lock();
+        }
+
+        try {
+            Token latest = current;
+            if (latest != null && latest != token && Instant.now().isBefore(latest.expiresAt())) {
+                return latest.value(); // Refreshed while this caller waited for the lock.
+            }
+            Token fresh = internalLogin();
+            current = fresh;
+            return fresh.value();
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the call with the current token, and once more with a fresh token if Superset answers 401.
+     */
+    <T> T withToken(Function<String, T> call) {
+        String token = token();
+        try {
+            return call.apply(token);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            logger.warn("Superset rejected the access token, logging in again");
+            unauthorizedRetries.increment();
+            internalInvalidate(token);
+            return call.apply(token());
+        }
+    }
+
+    // Only drops the rejected token, so a token another caller already refreshed is kept.
+    private void internalInvalidate(String rejected) {
+        loginLock.lock();
+        try {
+            Token token = current;
+            if (token != null && token.value().equals(rejected)) current = null;
+        } finally {
+            loginLock.unlock();
+        }
+    }
+
+    private Token internalLogin() {
+        String value = login.get();
+        logins.increment();
+
+        Instant expiresAt = internalExpiryOf(value)
+                .getOrElse(() -> Instant.now().plus(FALLBACK_LIFETIME));
+        logger.info("Superset access token obtained, valid until {}", expiresAt);
+        return new Token(value, expiresAt);
+    }
+
+    // The exp claim of the JWT payload, in epoch seconds; the signature is Superset's to check, not ours.
+    private Try<Instant> internalExpiryOf(String jwt) {
+        return Try.of(() -> {
+            String[] parts = jwt.split("\\.");
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            JsonNode exp = objectMapper.readTree(payload).path("exp");
+            if (!exp.isNumber()) throw new IllegalStateException("Token has no exp claim");
+            return Instant.ofEpochSecond(exp.asLong());
+        }).onFailure(ex -> logger.warn("Could not read the token expiry, assuming {}: {}", FALLBACK_LIFETIME, ex.getMessage()));
+    }
+}
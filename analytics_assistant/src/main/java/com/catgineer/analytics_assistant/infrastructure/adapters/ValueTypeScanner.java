@@ -0,0 +1,98 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnType;
+
+/**
+ * Regex-free type inference for CSV cells.
+ * Each check is a straight character scan over the value.
+ */
+final class ValueTypeScanner {
+
+    private ValueTypeScanner() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @return the inferred type, or null for blank values which carry no type information.
+     */
+    static ColumnType infer(CharSequence value) {
+        int length = value.length();
+        if (length == 0) return null;
+
+        char first = value.charAt(0);
+        if (first == '-' || isDigit(first)) {
+            if (isDate(value)) return ColumnType.DATE;
+            if (isTimestamp(value)) return ColumnType.TIMESTAMP;
+            if (isNumeric(value)) return ColumnType.NUMERIC;
+            return ColumnType.TEXT;
+        }
+        if (isBoolean(value)) return ColumnType.BOOLEAN;
+        return ColumnType.TEXT;
+    }
+
+    // -?\d+(\.\d+)?
+    static boolean isNumeric(CharSequence value) {
+        int length = value.length();
+        int i = value.charAt(0) == '-' ? 1 : 0;
+
+        int integerDigits = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+            integerDigits++;
+        }
+        if (integerDigits == 0) return false;
+        if (i == length) return true;
+        if (value.charAt(i++) != '.') return false;
+
+        int fractionDigits = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+            fractionDigits++;
+        }
+        return fractionDigits > 0 && i == length;
+    }
+
+    // \d{4}-\d{2}-\d{2}
+    static boolean isDate(CharSequence value) {
+        return value.length() == 10 && hasDatePrefix(value);
+    }
+
+    // \d{4}-\d{2}-\d{2}[T ]\d{2}:\d{2}:\d{2}.*
+    static boolean isTimestamp(CharSequence value) {
+        if (value.length() < 19 || !hasDatePrefix(value)) return false;
+        char separator = value.charAt(10);
+        return (separator == 'T' || separator == ' ')
+                && digits(value, 11, 13) && value.charAt(13) == ':'
+                && digits(value, 14, 16) && value.charAt(16) == ':'
+                && digits(value, 17, 19);
+    }
+
+    static boolean isBoolean(CharSequence value) {
+        return equalsIgnoreCase(value, "true") || equalsIgnoreCase(value, "false");
+    }
+
+    private static boolean hasDatePrefix(CharSequence value) {
+        return digits(value, 0, 4) && value.charAt(4) == '-'
+                && digits(value, 5, 7) && value.charAt(7) == '-'
+                && digits(value, 8, 10);
+    }
+
+    private static boolean digits(CharSequence value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence value, String expected) {
+        if (value.length() != expected.length()) return false;
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(value.charAt(i)) != expected.charAt(i)) return false;
+        }
+        return true;
+    }
+}
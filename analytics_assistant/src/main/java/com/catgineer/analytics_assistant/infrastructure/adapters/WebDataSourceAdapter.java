@@ -1,41 +1,220 @@
 package com.catgineer.analytics_assistant.infrastructure.adapters;
 
+import com.catgineer.analytics_assistant.domain.ContentHash;
 import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.model.PageLinks;
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
+import com.catgineer.analytics_assistant.domain.model.SourceFetchResult;
+import com.catgineer.analytics_assistant.domain.model.SourcePage;
 import com.catgineer.analytics_assistant.infrastructure.ports.DataSourceProvider;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.client.RestClient;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class WebDataSourceAdapter implements DataSourceProvider {
 
+    // Thrown for a 429, or a 403 with rate-limit headers, so the request is retried after the limit resets.
+    private static final class RateLimitedException extends RuntimeException {
+        private RateLimitedException(String url) {
+            super("Rate limited while fetching " + url);
+        }
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(WebDataSourceAdapter.class);
-    private final RestClient restClient;
+    private static final String LINK = "Link";
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET = "X-RateLimit-Reset";
+    private static final Pattern LINK_VALUE = Pattern.compile("<([^>]+)>[^,]*?;\\s*rel=\"?([^\";,]+)\"?");
+    private static final Duration DEFAULT_RATE_LIMIT_WAIT = Duration.ofSeconds(1);
+    private static final Duration MAX_RATE_LIMIT_WAIT = Duration.ofSeconds(60);
+    private static final int RATE_LIMIT_RETRIES = 2;
 
-    public WebDataSourceAdapter(RestClient.Builder restClientBuilder) {
+    private final WebClient webClient; // Streams large bodies to disk instead of buffering them.
+    private final Map<String, Long> resumeAtByHost = new ConcurrentHashMap<>(); // Epoch millis per rate-limited host.
+
+    public WebDataSourceAdapter(WebClient.Builder webClientBuilder) {
         // We use the builder to allow for global configurations if needed later
-        this.restClient = restClientBuilder.build();
+        this.webClient = webClientBuilder.build();
+    }
+
+    /**
+     * Streams the response body into a temp file while hashing it, so the payload never sits on the heap.
+     * Once the result is emitted the caller owns the file; a failed or cancelled download deletes it.
+     */
+    private Mono<SourceFetchResult.Modified> internalSpool(Flux<DataBuffer> body, String etag, String lastModified) {
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("source-", ".spool"))
+                        .subscribeOn(SafeRunner.blockingScheduler()),
+                file -> {
+                    MessageDigest digest = ContentHash.newDigest();
+                    long[] size = {0};
+
+                    Flux<DataBuffer> hashed = body.doOnNext(buffer -> {
+                        size[0] += buffer.readableByteCount();
+                        try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+                            views.forEachRemaining(digest::update);
+                        }
+                    });
+
+                    return DataBufferUtils.write(hashed, file)
+                            .then(Mono.fromCallable(() -> new SourceFetchResult.Modified(
+                                    new SourceBody.Spooled(file, size[0]),
+                                    HexFormat.of().formatHex(digest.digest()),
+                                    etag,
+                                    lastModified)));
+                },
+                file -> Mono.empty(),
+                (file, ex) -> internalDeleteSpool(file),
+                this::internalDeleteSpool);
+    }
+
+    private Mono<Void> internalDeleteSpool(Path file) {
+        return Mono.fromRunnable(() -> new SourceBody.Spooled(file, 0).release())
+                .subscribeOn(SafeRunner.blockingScheduler())
+                .then();
+    }
+
+    /**
+     * Waits out a known rate limit of the host before the request. A wait longer than MAX_RATE_LIMIT_WAIT
+     * fails the request instead of stalling the whole ingestion.
+     */
+    private Mono<Void> internalAwaitRateLimit(String host) {
+        long waitMillis = resumeAtByHost.getOrDefault(host, 0L) - System.currentTimeMillis();
+        if (waitMillis <= 0) return Mono.empty();
+        if (waitMillis > MAX_RATE_LIMIT_WAIT.toMillis()) {
+            return Mono.error(new IllegalStateException(
+                    "Rate limit of " + host + " resets in " + Duration.ofMillis(waitMillis).toSeconds() + "s"));
+        }
+        logger.info("Waiting {} ms for the rate limit of {}", waitMillis, host);
+        return Mono.delay(Duration.ofMillis(waitMillis)).then();
+    }
+
+    /**
+     * Records when the host accepts requests again, from Retry-After or from an exhausted
+     * X-RateLimit-Remaining with its X-RateLimit-Reset (epoch seconds). Returns whether this response was rate limited.
+     */
+    private boolean internalObserveRateLimit(String host, int status, HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        Long resumeAt = null;
+
+        String retryAfter = headers.getFirst(RETRY_AFTER);
+        String remaining = headers.getFirst(RATE_LIMIT_REMAINING);
+        String reset = headers.getFirst(RATE_LIMIT_RESET);
+        if (retryAfter != null) {
+            resumeAt = Try.of(() -> now + Long.parseLong(retryAfter.strip()) * 1000)
+                    .orElse(() -> Try.of(() -> ZonedDateTime.parse(retryAfter.strip(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()))
+                    .getOrNull();
+        } else if ("0".equals(remaining) && reset != null) {
+            resumeAt = Try.of(() -> Long.parseLong(reset.strip()) * 1000).getOrNull();
+        }
+        if (resumeAt == null && status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            resumeAt = now + DEFAULT_RATE_LIMIT_WAIT.toMillis();
+        }
+
+        if (resumeAt != null) resumeAtByHost.merge(host, resumeAt, Math::max);
+        return status == HttpStatus.TOO_MANY_REQUESTS.value()
+                || (status == HttpStatus.FORBIDDEN.value() && resumeAt != null);
     }
 
-    private String internalFetch(String url) {
+    // Parses rel="next" and rel="last" out of a Link header such as <https://api/x?page=2>; rel="next".
+    private static PageLinks internalParseLinks(String linkHeader) {
+        if (linkHeader == null || linkHeader.isBlank()) return PageLinks.none();
+
+        String next = null;
+        String last = null;
+        Matcher link = LINK_VALUE.matcher(linkHeader);
+        while (link.find()) {
+            for (String rel : link.group(2).strip().split("\\s+")) {
+                if (rel.equals("next")) next = link.group(1);
+                if (rel.equals("last")) last = link.group(1);
+            }
+        }
+        return new PageLinks(next, last);
+    }
+
+    /**
+     * Runs one GET behind the host's rate-limit gate. A rate-limited response is retried once the limit
+     * resets; other error statuses fail the page. The body reader sees every non-error response, including 304.
+     */
+    private <T> Mono<SourcePage<T>> internalExchangePage(String url, Consumer<HttpHeaders> conditions, Function<ClientResponse, Mono<T>> bodyReader) {
         if (url == null || url.isBlank()) {
-            throw new IllegalArgumentException("Target URL cannot be null or empty");
+            return Mono.error(new IllegalArgumentException("Target URL cannot be null or empty"));
         }
-        
-        logger.info("Fetching raw data from URL: {}", url);
-        
-        // RestClient execution is synchronous. 
-        // On a Virtual Thread, this is as efficient as await.
-        return restClient.get()
-                .uri(url)
-                .retrieve()
-                .body(String.class);
+
+        return Mono.defer(() -> {
+                    String host = URI.create(url).getHost();
+                    return internalAwaitRateLimit(host).then(webClient.get()
+                            .uri(url)
+                            .headers(conditions)
+                            .exchangeToMono(response -> {
+                                HttpHeaders headers = response.headers().asHttpHeaders();
+                                if (internalObserveRateLimit(host, response.statusCode().value(), headers)) {
+                                    logger.warn("Rate limited by {} ({}) on {}", host, response.statusCode().value(), url);
+                                    return response.releaseBody().then(Mono.<SourcePage<T>>error(new RateLimitedException(url)));
+                                }
+                                if (response.statusCode().isError()) {
+                                    return response.<SourcePage<T>>createError();
+                                }
+
+                                PageLinks links = internalParseLinks(headers.getFirst(LINK));
+                                return bodyReader.apply(response).map(content -> new SourcePage<>(url, content, links));
+                            }));
+                })
+                .retryWhen(Retry.max(RATE_LIMIT_RETRIES).filter(RateLimitedException.class::isInstance));
+    }
+
+    private Mono<SourcePage<SourceFetchResult>> internalFetchPageIfChanged(String url, String etag, String lastModified) {
+        logger.info("Conditionally fetching URL: {} (etag: {}, last-modified: {})", url, etag, lastModified);
+
+        return internalExchangePage(url,
+                headers -> {
+                    if (etag != null) headers.setIfNoneMatch(etag);
+                    if (lastModified != null) headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                },
+                response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        logger.info("Source unchanged (304): {}", url);
+                        return response.releaseBody().thenReturn(new SourceFetchResult.NotModified());
+                    }
+
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    return internalSpool(response.bodyToFlux(DataBuffer.class), headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED))
+                            .cast(SourceFetchResult.class);
+                });
     }
 
     @Override
-    public Mono<Try<String>> fetchFrom(String url) {
-        // SafeRunner keeps our monadic contract intact for the caller
-        return SafeRunner.futureSafe(() -> internalFetch(url));
+    public Mono<Try<SourcePage<SourceFetchResult>>> fetchPageIfChanged(String url, String etag, String lastModified) {
+        return internalFetchPageIfChanged(url, etag, lastModified)
+                .map(Try::success)
+                .onErrorResume(ex -> {
+                    logger.error("Streaming fetch failed for {}: {}", url, ex.getMessage());
+                    return Mono.just(Try.<SourcePage<SourceFetchResult>>failure(ex));
+                });
     }
 }
@@ -1,17 +1,25 @@
 package com.catgineer.analytics_assistant.infrastructure.ports;
 
 import io.vavr.control.Try;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
 
 public interface AIProvider {
     Mono<Try<Boolean>> validatePrompt(String prompt);
     Mono<Try<String>> sendPromptToAI(String model, String prompt, List<String> contextData);
+    Flux<Try<String>> streamPromptToAI(String model, String prompt, List<String> contextData);
     Mono<Try<Boolean>> validateAIResponse(String aiResponse);
     Mono<Try<ChartDataSet>> extractChartDataSet(String prompt, String aiResponse);
+    Flux<Try<ChartStreamEvent>> extractChartDataSetIncrementally(String prompt, Flux<String> csvDeltas);
     Mono<Try<Boolean>> embedData(String data);
+    // Re-embeds the source over its previous chunks (hashes in order, empty for a new source), uploading only
+    // what changed and retracting what was superseded; yields the hashes of all chunks, in order.
+    Mono<Try<List<String>>> embedChangedChunks(String sourceUrl, SourceBody data, List<String> previousChunkHashes);
     Mono<Try<Boolean>> authenticate(String username, String password);
 }
@@ -0,0 +1,20 @@
+package com.catgineer.analytics_assistant.infrastructure.ports;
+
+import com.catgineer.analytics_assistant.domain.model.ChartJob;
+import io.vavr.control.Try;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+public interface ChartJobStore {
+    // Inserts a queued job owned by the given instance, unless a job with the same request hash is still
+    // queued or running; that one is returned instead.
+    Mono<Try<ChartJob>> createOrFindActive(String jobId, String requestHash, String owner, String prompt, String modelName);
+
+    Mono<Try<Optional<ChartJob>>> find(String jobId);
+
+    Mono<Try<Boolean>> update(String jobId, ChartJob.Status status, String stage, Integer chartId, String error);
+
+    // Fails the jobs of the given instance left queued or running, e.g. by its previous process that stopped mid-run.
+    Mono<Try<Integer>> failUnfinished(String owner, String reason);
+}
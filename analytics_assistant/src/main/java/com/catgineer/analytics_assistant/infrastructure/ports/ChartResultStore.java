@@ -0,0 +1,14 @@
+package com.catgineer.analytics_assistant.infrastructure.ports;
+
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import io.vavr.control.Try;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public interface ChartResultStore {
+    // Persistent tier of the chart result cache; entries older than maxAge are treated as missing.
+    Mono<Try<Optional<ChartDataSet>>> load(String cacheKey, Duration maxAge);
+    Mono<Try<Boolean>> save(String cacheKey, ChartDataSet dataSet);
+}
@@ -1,8 +1,12 @@
 package com.catgineer.analytics_assistant.infrastructure.ports;
 
+import com.catgineer.analytics_assistant.domain.model.SourceFetchResult;
+import com.catgineer.analytics_assistant.domain.model.SourcePage;
 import io.vavr.control.Try;
 import reactor.core.publisher.Mono;
 
 public interface DataSourceProvider {
-    Mono<Try<String>> fetchFrom(String url);
+    // One page of a source, with the pagination links of the response. Sends the validators of the
+    // previous fetch (either may be null); an unchanged page yields NotModified.
+    Mono<Try<SourcePage<SourceFetchResult>>> fetchPageIfChanged(String url, String etag, String lastModified);
 }
@@ -0,0 +1,12 @@
+package com.catgineer.analytics_assistant.infrastructure.ports;
+
+import com.catgineer.analytics_assistant.domain.model.SourceLedgerEntry;
+import io.vavr.control.Try;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+public interface IngestionLedger {
+    Mono<Try<Optional<SourceLedgerEntry>>> find(String sourceUrl);
+    Mono<Try<Boolean>> record(SourceLedgerEntry entry);
+}
@@ -1,15 +1,26 @@
 package com.catgineer.analytics_assistant.infrastructure.ports;
 
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.TableLoad;
 import io.vavr.control.Try;
 import reactor.core.publisher.Mono;
 import java.util.List;
-import java.util.Map;
 
 public interface VisualisationProvider {
     // Data Layer (Postgres)
-    Mono<Try<Boolean>> overwritePhysicalTable(String tableName, List<Map<String, Object>> data);
+    Mono<Try<Boolean>> overwritePhysicalTable(String tableName, List<ColumnDefinition> schema, List<ColumnarTable.RowView> rows);
+    // Loads every table in one transaction: readers see all of them swapped in, or none.
+    Mono<Try<Boolean>> overwritePhysicalTables(List<TableLoad> loads);
 
     // Presentation Layer (Superset)
     Mono<Try<Boolean>> refreshDataset(Integer datasetId);
     Mono<Try<Integer>> createChart(Integer datasetId, String chartName, String vizType, String paramsJson);
+
+    // Dataset pool: registering finds or creates the dataset of a table, creating an empty table if needed.
+    Mono<Try<Integer>> registerDataset(String tableName);
+    // A null datasetId drops whatever dataset is registered on the table, if any.
+    Mono<Try<Boolean>> dropDataset(String tableName, Integer datasetId);
+    // Physical tables named baseTableName_N, e.g. slots left over from a previous run.
+    Mono<Try<List<String>>> listPoolTables(String baseTableName);
 }
@@ -0,0 +1,168 @@
+package com.catgineer.analytics_assistant.domain;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTest {
+
+    private static final Duration RELAXED = Duration.ofHours(1);
+    // No call can answer within a negative target, so every sample counts as slow.
+    private static final Duration IMPOSSIBLE = Duration.ofNanos(-1);
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    // A call that stays in flight until the test completes it.
+    private Sinks.One<String> hold(AdaptiveLimiter limiter, String name) {
+        Sinks.One<String> result = Sinks.one();
+        limiter.run(() -> {
+            started.add(name);
+            return result.asMono();
+        }, value -> false).subscribe(value -> { }, error -> { });
+        return result;
+    }
+
+    private static String fast(AdaptiveLimiter limiter, String value) {
+        return limiter.run(() -> Mono.just(value), result -> result.startsWith("failed")).block();
+    }
+
+    @Test
+    void aFastCallRaisesTheLimitWhileItIsAtLeastHalfUsed() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("increase", 2, 1, 10, 0, RELAXED);
+        hold(limiter, "held");
+
+        fast(limiter, "ok");
+        assertThat(limiter.limit()).isEqualTo(3);
+        fast(limiter, "ok");
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void aFastCallDoesNotRaiseAnUnderusedLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("underused", 4, 1, 10, 0, RELAXED);
+
+        fast(limiter, "ok");
+
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void theLimitNeverExceedsMaxLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("capped", 2, 1, 2, 0, RELAXED);
+        hold(limiter, "held");
+
+        fast(limiter, "ok");
+
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void failedAndErroredCallsCutTheLimitDownToMinLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("decrease", 8, 3, 10, 0, RELAXED);
+
+        fast(limiter, "failed: bad response");
+        assertThat(limiter.limit()).isEqualTo(6);
+
+        limiter.run(() -> Mono.<String>error(new IllegalStateException("timeout")), value -> false)
+                .onErrorReturn("recovered")
+                .block();
+        assertThat(limiter.limit()).isEqualTo(4);
+
+        fast(limiter, "failed: again");
+        assertThat(limiter.limit()).isEqualTo(3);
+        fast(limiter, "failed: at the floor");
+        assertThat(limiter.limit()).isEqualTo(3);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void aSlowCallCutsTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("slow", 4, 1, 10, 0, IMPOSSIBLE);
+
+        fast(limiter, "ok");
+
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    void callsOverTheLimitWaitInArrivalOrderAndOverflowIsRejected() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("queue", 1, 1, 1, 2, RELAXED);
+        Sinks.One<String> first = hold(limiter, "first");
+        Sinks.One<String> second = hold(limiter, "second");
+        hold(limiter, "third");
+        assertThat(limiter.queued()).isEqualTo(2);
+
+        AtomicReference<Throwable> rejection = new AtomicReference<>();
+        limiter.run(() -> Mono.just("fourth"), value -> false).subscribe(value -> { }, rejection::set);
+        assertThat(rejection.get()).isInstanceOf(AdmissionRejectedException.class);
+
+        first.tryEmitValue("done");
+        assertThat(started).containsExactly("first", "second");
+        second.tryEmitValue("done");
+        assertThat(started).containsExactly("first", "second", "third");
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void aCallCancelledWhileQueuedNeverRuns() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("cancel", 1, 1, 1, 4, RELAXED);
+        Sinks.One<String> first = hold(limiter, "first");
+        Disposable queued = limiter.run(() -> {
+            started.add("cancelled");
+            return Mono.just("never");
+        }, value -> false).subscribe();
+        assertThat(limiter.queued()).isEqualTo(1);
+
+        queued.dispose();
+        assertThat(limiter.queued()).isZero();
+
+        first.tryEmitValue("done");
+        assertThat(started).containsExactly("first");
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void cancellingARunningCallFreesItsSlot() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("cancel-running", 1, 1, 1, 4, RELAXED);
+        Disposable running = limiter.run(() -> {
+            started.add("running");
+            return Mono.<String>never();
+        }, value -> false).subscribe();
+        hold(limiter, "next");
+
+        running.dispose();
+
+        assertThat(started).containsExactly("running", "next");
+        assertThat(limiter.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void aStreamHoldsItsSlotUntilItTerminatesAndIsSampledOnce() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("stream", 1, 1, 4, 4, RELAXED);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> received = new ArrayList<>();
+        limiter.runStream(tokens::asFlux, token -> token.startsWith("failed")).subscribe(received::add);
+        hold(limiter, "after stream");
+
+        tokens.tryEmitNext("first");
+        // The first element was fast with the slot fully used, so the limit grew and admitted the waiting call.
+        assertThat(limiter.limit()).isEqualTo(2);
+        assertThat(started).containsExactly("after stream");
+
+        tokens.tryEmitNext("failed: later elements are not sampled");
+        tokens.tryEmitComplete();
+
+        assertThat(received).hasSize(2);
+        assertThat(limiter.limit()).isEqualTo(2);
+        assertThat(limiter.inFlight()).isEqualTo(1);
+    }
+}
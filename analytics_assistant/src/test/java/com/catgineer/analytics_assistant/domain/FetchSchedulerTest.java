@@ -0,0 +1,167 @@
+package com.catgineer.analytics_assistant.domain;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FetchSchedulerTest {
+
+    // Fetches that run until the test completes them; started records the order in which they were admitted.
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    private Sinks.One<String> submit(FetchScheduler scheduler, String name, String url, int priority) {
+        Sinks.One<String> result = Sinks.one();
+        scheduler.schedule(url, priority, () -> {
+            started.add(name);
+            return result.asMono();
+        }).subscribe();
+        return result;
+    }
+
+    private static FetchScheduler unthrottled(int maxInFlight, int maxPerHost) {
+        return new FetchScheduler(maxInFlight, maxPerHost, 0, 1, Map.of());
+    }
+
+    @Test
+    void admitsUpToTheGlobalLimit() {
+        FetchScheduler scheduler = unthrottled(2, 10);
+        Sinks.One<String> first = submit(scheduler, "a", "https://a.test/1", 0);
+        submit(scheduler, "b", "https://b.test/1", 0);
+        submit(scheduler, "c", "https://c.test/1", 0);
+
+        assertThat(started).containsExactly("a", "b");
+        assertThat(scheduler.inFlight()).isEqualTo(2);
+        assertThat(scheduler.queued()).isEqualTo(1);
+
+        first.tryEmitValue("done");
+        assertThat(started).containsExactly("a", "b", "c");
+        assertThat(scheduler.queued()).isZero();
+    }
+
+    @Test
+    void passesOverASaturatedHost() {
+        FetchScheduler scheduler = unthrottled(10, 1);
+        Sinks.One<String> first = submit(scheduler, "a1", "https://a.test/1", 0);
+        submit(scheduler, "a2", "https://A.test/2", 0);
+        submit(scheduler, "b1", "https://b.test/1", 0);
+
+        assertThat(started).containsExactly("a1", "b1");
+
+        first.tryEmitValue("done");
+        assertThat(started).containsExactly("a1", "b1", "a2");
+    }
+
+    @Test
+    void startsWaitingFetchesInPriorityThenArrivalOrder() {
+        FetchScheduler scheduler = unthrottled(1, 1);
+        Sinks.One<String> blocker = submit(scheduler, "blocker", "https://a.test/0", 0);
+        Sinks.One<String> low = submit(scheduler, "low", "https://a.test/1", 5);
+        Sinks.One<String> high = submit(scheduler, "high", "https://a.test/2", 1);
+        Sinks.One<String> high2 = submit(scheduler, "high2", "https://a.test/3", 1);
+
+        blocker.tryEmitValue("done");
+        high.tryEmitValue("done");
+        high2.tryEmitValue("done");
+        low.tryEmitValue("done");
+
+        assertThat(started).containsExactly("blocker", "high", "high2", "low");
+        assertThat(scheduler.inFlight()).isZero();
+    }
+
+    @Test
+    void aFetchCancelledWhileQueuedNeverStarts() {
+        FetchScheduler scheduler = unthrottled(1, 1);
+        Sinks.One<String> blocker = submit(scheduler, "blocker", "https://a.test/0", 0);
+        Disposable waiting = scheduler.schedule("https://a.test/1", 0, () -> {
+            started.add("cancelled");
+            return Mono.just("never");
+        }).subscribe();
+
+        assertThat(scheduler.queued()).isEqualTo(1);
+        waiting.dispose();
+        assertThat(scheduler.queued()).isZero();
+
+        blocker.tryEmitValue("done");
+        assertThat(started).containsExactly("blocker");
+        assertThat(scheduler.inFlight()).isZero();
+    }
+
+    @Test
+    void cancellingARunningFetchFreesItsSlot() {
+        FetchScheduler scheduler = unthrottled(1, 1);
+        Disposable running = scheduler.schedule("https://a.test/0", 0, () -> {
+            started.add("running");
+            return Mono.<String>never();
+        }).subscribe();
+        submit(scheduler, "next", "https://a.test/1", 0);
+
+        running.dispose();
+
+        assertThat(started).containsExactly("running", "next");
+        assertThat(scheduler.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void aFailedFetchFreesItsSlot() {
+        FetchScheduler scheduler = unthrottled(1, 1);
+        Sinks.One<String> failing = submit(scheduler, "failing", "https://a.test/0", 0);
+        submit(scheduler, "next", "https://a.test/1", 0);
+
+        failing.tryEmitError(new IllegalStateException("boom"));
+
+        assertThat(started).containsExactly("failing", "next");
+    }
+
+    @Test
+    void holdsAHostBackOnceItsBurstIsSpent() {
+        // Practically no refill within the test: the limited host gets its burst of two and no more.
+        FetchScheduler scheduler = new FetchScheduler(10, 10, 0.001, 2, Map.of("fast.test", 0.0));
+        for (int i = 1; i <= 3; i++) {
+            String name = "slow" + i;
+            scheduler.schedule("https://slow.test/" + i, 0, () -> {
+                started.add(name);
+                return Mono.just(name);
+            }).subscribe();
+        }
+        for (int i = 1; i <= 3; i++) {
+            String name = "fast" + i;
+            scheduler.schedule("https://fast.test/" + i, 0, () -> {
+                started.add(name);
+                return Mono.just(name);
+            }).subscribe();
+        }
+
+        assertThat(started).containsExactly("slow1", "slow2", "fast1", "fast2", "fast3");
+        assertThat(scheduler.queued()).isEqualTo(1);
+        assertThat(scheduler.inFlight()).isZero();
+    }
+
+    @Test
+    void startsAThrottledFetchOnceItsTokenIsRefilled() {
+        FetchScheduler scheduler = new FetchScheduler(10, 10, 10, 1, Map.of());
+        scheduler.schedule("https://a.test/1", 0, () -> Mono.just("first")).block(Duration.ofSeconds(1));
+
+        long start = System.nanoTime();
+        String second = scheduler.schedule("https://a.test/2", 0, () -> Mono.just("second")).block(Duration.ofSeconds(1));
+
+        // One token per 100 ms: the second fetch waits for most of that, then starts without polling.
+        assertThat(second).isEqualTo("second");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        assertThat(scheduler.queued()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThatThrownBy(() -> unthrottled(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> unthrottled(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
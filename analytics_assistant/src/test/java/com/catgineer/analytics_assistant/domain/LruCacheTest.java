@@ -0,0 +1,99 @@
+package com.catgineer.analytics_assistant.domain;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LruCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void addRegistry() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void removeRegistry() {
+        Metrics.removeRegistry(registry);
+    }
+
+    private double count(String meter, String cache, String... tags) {
+        return registry.get(meter).tag("cache", cache).tags(tags).counter().count();
+    }
+
+    @Test
+    void returnsStoredValuesAndCountsHitsAndMisses() {
+        LruCache<String, Integer> cache = new LruCache<>("hits", 4, Duration.ofMinutes(5));
+        cache.put("a", 1);
+
+        assertThat(cache.get("a")).contains(1);
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(count("cache.gets", "hits", "result", "hit")).isEqualTo(1);
+        assertThat(count("cache.gets", "hits", "result", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryBeyondTheCap() {
+        LruCache<String, Integer> cache = new LruCache<>("lru", 2, Duration.ofMinutes(5));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a"); // b is now the least recently used
+        cache.put("c", 3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).contains(1);
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).contains(3);
+        assertThat(count("cache.evictions", "lru")).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", "lru").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreMissesAndAreDropped() {
+        LruCache<String, Integer> cache = new LruCache<>("ttl", 4, Duration.ofSeconds(-1));
+        cache.put("a", 1);
+
+        assertThat(cache.get("a")).isEmpty();
+        assertThat(cache.size()).isZero();
+        assertThat(count("cache.gets", "ttl", "result", "miss")).isEqualTo(1);
+        assertThat(count("cache.evictions", "ttl")).isEqualTo(1);
+    }
+
+    @Test
+    void putRefreshesAnExistingEntry() {
+        LruCache<String, Integer> cache = new LruCache<>("refresh", 2, Duration.ofMinutes(5));
+        cache.put("a", 1);
+        cache.put("a", 2);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("a")).contains(2);
+    }
+
+    @Test
+    void invalidatesSingleEntriesAndEverything() {
+        LruCache<String, Integer> cache = new LruCache<>("invalidate", 4, Duration.ofMinutes(5));
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        assertThat(cache.invalidate("a")).isTrue();
+        assertThat(cache.invalidate("a")).isFalse();
+        assertThat(cache.get("a")).isEmpty();
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void rejectsANonPositiveCap() {
+        assertThatThrownBy(() -> new LruCache<String, Integer>("empty", 0, Duration.ofMinutes(5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
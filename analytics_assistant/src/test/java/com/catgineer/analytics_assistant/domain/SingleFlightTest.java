@@ -0,0 +1,108 @@
+package com.catgineer.analytics_assistant.domain;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void addRegistry() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void removeRegistry() {
+        Metrics.removeRegistry(registry);
+    }
+
+    // Work that runs until the test emits its result.
+    private Mono<String> pending(Sinks.One<String> result) {
+        executions.incrementAndGet();
+        return result.asMono();
+    }
+
+    @Test
+    void concurrentCallsWithTheSameKeyShareOneExecution() {
+        SingleFlight<String, String> flight = new SingleFlight<>("shared");
+        Sinks.One<String> result = Sinks.one();
+        List<String> received = new ArrayList<>();
+
+        flight.execute("k", () -> pending(result)).subscribe(received::add);
+        flight.execute("k", () -> pending(result)).subscribe(received::add);
+        assertThat(executions).hasValue(1);
+        assertThat(registry.get("single_flight.in_flight").tag("name", "shared").gauge().value()).isEqualTo(1);
+
+        result.tryEmitValue("chart");
+
+        assertThat(received).containsExactly("chart", "chart");
+        assertThat(registry.get("single_flight.calls").tag("name", "shared").tag("role", "leader").counter().count()).isEqualTo(1);
+        assertThat(registry.get("single_flight.calls").tag("name", "shared").tag("role", "coalesced").counter().count()).isEqualTo(1);
+        assertThat(registry.get("single_flight.in_flight").tag("name", "shared").gauge().value()).isZero();
+    }
+
+    @Test
+    void differentKeysRunSeparately() {
+        SingleFlight<String, String> flight = new SingleFlight<>("keys");
+
+        flight.execute("a", () -> pending(Sinks.one())).subscribe();
+        flight.execute("b", () -> pending(Sinks.one())).subscribe();
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void aFinishedExecutionIsNotReused() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("sequential");
+
+        assertThat(flight.execute("k", () -> Mono.just(executions.incrementAndGet())).block()).isEqualTo(1);
+        assertThat(flight.execute("k", () -> Mono.just(executions.incrementAndGet())).block()).isEqualTo(2);
+    }
+
+    @Test
+    void aFailureReachesEveryCallerAndIsNotCached() {
+        SingleFlight<String, String> flight = new SingleFlight<>("failure");
+        Sinks.One<String> result = Sinks.one();
+        List<Throwable> errors = new ArrayList<>();
+
+        flight.execute("k", () -> pending(result)).subscribe(value -> { }, errors::add);
+        flight.execute("k", () -> pending(result)).subscribe(value -> { }, errors::add);
+        result.tryEmitError(new IllegalStateException("generation failed"));
+
+        assertThat(errors).hasSize(2).allMatch(error -> error.getMessage().equals("generation failed"));
+        assertThat(flight.execute("k", () -> Mono.just("retried")).block()).isEqualTo("retried");
+    }
+
+    @Test
+    void aCancellingCallerDoesNotCancelTheSharedExecution() {
+        SingleFlight<String, String> flight = new SingleFlight<>("cancel");
+        Sinks.One<String> result = Sinks.one();
+        AtomicBoolean workCancelled = new AtomicBoolean();
+        AtomicReference<String> received = new AtomicReference<>();
+
+        Disposable first = flight.execute("k", () -> pending(result).doOnCancel(() -> workCancelled.set(true))).subscribe();
+        flight.execute("k", () -> pending(result)).subscribe(received::set);
+        first.dispose();
+        result.tryEmitValue("chart");
+
+        assertThat(workCancelled).isFalse();
+        assertThat(received).hasValue("chart");
+        assertThat(executions).hasValue(1);
+    }
+}
@@ -0,0 +1,179 @@
+package com.catgineer.analytics_assistant.domain.services;
+
+import com.catgineer.analytics_assistant.domain.SafeRunner;
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ChartStreamEvent;
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.DatasetSlot;
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
+import com.catgineer.analytics_assistant.domain.model.TableLoad;
+import com.catgineer.analytics_assistant.infrastructure.ports.AIProvider;
+import com.catgineer.analytics_assistant.infrastructure.ports.VisualisationProvider;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the composed chart pipeline (generation, then sync) at growing concurrency against providers that
+ * block for a fixed latency on every call, the way the real adapters block on HTTP and JDBC.
+ * Without nested blocking the platform thread count stays flat and a request takes as long at 1000
+ * concurrent requests as at 10, so throughput grows with concurrency.
+ */
+class ChartPipelineLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartPipelineLoadTest.class);
+    private static final String MODEL = "single-pass-model";
+    private static final Duration LATENCY = Duration.ofMillis(50);
+    private static final int STAGES = 7; // validate prompt, completion, validate response, extract, write, refresh, chart
+
+    private record Run(int concurrency, int peakThreads, Duration elapsed) {
+        double throughput() {
+            return concurrency * 1000.0 / elapsed.toMillis();
+        }
+    }
+
+    private static <T> Mono<Try<T>> slow(Callable<T> result) {
+        return SafeRunner.futureSafe("load_test", () -> {
+            Thread.sleep(LATENCY);
+            return result.call();
+        });
+    }
+
+    private static final class SlowAIProvider implements AIProvider {
+        @Override
+        public Mono<Try<Boolean>> validatePrompt(String prompt) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public Mono<Try<String>> sendPromptToAI(String model, String prompt, List<String> contextData) {
+            return slow(() -> "```csv\nday,count\n2026-01-01,1\n```");
+        }
+
+        @Override
+        public Flux<Try<String>> streamPromptToAI(String model, String prompt, List<String> contextData) {
+            return Flux.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> validateAIResponse(String aiResponse) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public Mono<Try<ChartDataSet>> extractChartDataSet(String prompt, String aiResponse) {
+            return slow(() -> new ChartDataSet("1", "chart_data", prompt, ColumnarTable.empty()));
+        }
+
+        @Override
+        public Flux<Try<ChartStreamEvent>> extractChartDataSetIncrementally(String prompt, Flux<String> csvDeltas) {
+            return Flux.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> embedData(String data) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<List<String>>> embedChangedChunks(String sourceUrl, SourceBody data, List<String> previousChunkHashes) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> authenticate(String username, String password) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+    }
+
+    private static final class SlowVisualisationProvider implements VisualisationProvider {
+        @Override
+        public Mono<Try<Boolean>> overwritePhysicalTable(String tableName, List<ColumnDefinition> schema, List<ColumnarTable.RowView> rows) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public Mono<Try<Boolean>> overwritePhysicalTables(List<TableLoad> loads) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public Mono<Try<Boolean>> refreshDataset(Integer datasetId) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public Mono<Try<Integer>> createChart(Integer datasetId, String chartName, String vizType, String paramsJson) {
+            return slow(() -> datasetId);
+        }
+
+        @Override
+        public Mono<Try<Integer>> registerDataset(String tableName) {
+            return slow(() -> 1);
+        }
+
+        @Override
+        public Mono<Try<Boolean>> dropDataset(String tableName, Integer datasetId) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public Mono<Try<List<String>>> listPoolTables(String baseTableName) {
+            return slow(() -> List.<String>of());
+        }
+    }
+
+    private final AIService aiService = new AIService(new SlowAIProvider(), new SchemaCache(16, Duration.ofMinutes(5)), Set.of(MODEL));
+    private final VisualisationService visualisationService = new VisualisationService(new SlowVisualisationProvider());
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Run internalRun(int concurrency) {
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+
+        List<Try<Integer>> results = Flux.range(0, concurrency)
+                .flatMap(i -> aiService.generateChartData("commits per day " + i, MODEL)
+                        .flatMap(generated -> generated.isSuccess()
+                                ? visualisationService.syncDataToVisualisation(generated.get(), new DatasetSlot("chart_data_" + i, i))
+                                : Mono.just(Try.<Integer>failure(generated.getCause()))), concurrency)
+                .collectList()
+                .block(Duration.ofMinutes(1));
+
+        Run run = new Run(concurrency, threads.getPeakThreadCount(), Duration.ofNanos(System.nanoTime() - start));
+        assertThat(results).hasSize(concurrency).allMatch(Try::isSuccess);
+        logger.info("{} concurrent requests: peak {} platform threads, {} ms, {} requests/s",
+                run.concurrency(), run.peakThreads(), run.elapsed().toMillis(), Math.round(run.throughput()));
+        return run;
+    }
+
+    @Test
+    void threadCountAndLatencyStayFlatAsConcurrencyGrows() {
+        // Warm up at full load, so lazily started carrier and scheduler threads exist before measuring.
+        internalRun(1000);
+
+        Run low = internalRun(10);
+        Run medium = internalRun(100);
+        Run high = internalRun(1000);
+
+        assertThat(high.peakThreads()).isLessThanOrEqualTo(low.peakThreads() + 4);
+        assertThat(medium.peakThreads()).isLessThanOrEqualTo(low.peakThreads() + 4);
+
+        // Every request spends STAGES latencies in the providers; the pipeline adds no queueing on top.
+        Duration floor = LATENCY.multipliedBy(STAGES);
+        assertThat(low.elapsed()).isGreaterThanOrEqualTo(floor);
+        assertThat(high.elapsed()).isLessThan(low.elapsed().multipliedBy(4));
+    }
+}
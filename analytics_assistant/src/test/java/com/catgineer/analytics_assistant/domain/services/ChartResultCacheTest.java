@@ -0,0 +1,150 @@
+package com.catgineer.analytics_assistant.domain.services;
+
+import com.catgineer.analytics_assistant.domain.model.ChartDataSet;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.SourceLedgerEntry;
+import com.catgineer.analytics_assistant.infrastructure.ports.ChartResultStore;
+import com.catgineer.analytics_assistant.infrastructure.ports.IngestionLedger;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChartResultCacheTest {
+
+    private static final List<String> SOURCES = List.of("https://example.test/a");
+
+    // The persistent tier is switched off in these tests, so the store is never called.
+    private static final ChartResultStore NO_STORE = new ChartResultStore() {
+        @Override
+        public Mono<Try<Optional<ChartDataSet>>> load(String cacheKey, Duration maxAge) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> save(String cacheKey, ChartDataSet dataSet) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+    };
+
+    // Answers from the entries the test records; a source without one has never been ingested.
+    private static final class RecordingLedger implements IngestionLedger {
+        private final Map<String, SourceLedgerEntry> entries = new ConcurrentHashMap<>();
+        private volatile boolean failing;
+
+        @Override
+        public Mono<Try<Optional<SourceLedgerEntry>>> find(String sourceUrl) {
+            if (failing) return Mono.just(Try.failure(new IllegalStateException("postgres down")));
+            return Mono.just(Try.success(Optional.ofNullable(entries.get(sourceUrl))));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> record(SourceLedgerEntry entry) {
+            entries.put(entry.sourceUrl(), entry);
+            return Mono.just(Try.success(true));
+        }
+    }
+
+    private final RecordingLedger ledger = new RecordingLedger();
+    private final ChartResultCache cache = new ChartResultCache(NO_STORE, ledger, 16, Duration.ofMinutes(5), false);
+    private final AtomicInteger generations = new AtomicInteger();
+
+    private Mono<Try<ChartDataSet>> generate(Sinks.One<Try<ChartDataSet>> result) {
+        generations.incrementAndGet();
+        return result.asMono();
+    }
+
+    private static ChartDataSet dataSet(String prompt) {
+        return new ChartDataSet("1", "chart_data", prompt, ColumnarTable.empty());
+    }
+
+    @Test
+    void concurrentRequestsForTheSamePromptShareOneGeneration() {
+        Sinks.One<Try<ChartDataSet>> result = Sinks.one();
+
+        // As in a batch: the same chart asked twice, differing only in case and trailing punctuation.
+        Mono<List<Try<ChartDataSet>>> both = Flux.merge(
+                cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)),
+                cache.getOrGenerate("sales by region.", "model", SOURCES, () -> generate(result))
+        ).collectList().cache();
+        both.subscribe();
+
+        result.tryEmitValue(Try.success(dataSet("Sales by region")));
+
+        assertThat(both.block()).hasSize(2).allSatisfy(generated -> assertThat(generated.isSuccess()).isTrue());
+        assertThat(generations).hasValue(1);
+    }
+
+    @Test
+    void aRequestAfterTheGenerationFinishedIsServedFromTheCache() {
+        Sinks.One<Try<ChartDataSet>> result = Sinks.one();
+        result.tryEmitValue(Try.success(dataSet("Sales by region")));
+
+        cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+        Try<ChartDataSet> cached = cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+
+        assertThat(cached.get().sourcePrompt()).isEqualTo("Sales by region");
+        assertThat(generations).hasValue(1);
+    }
+
+    @Test
+    void differentModelsAreGeneratedSeparately() {
+        Sinks.One<Try<ChartDataSet>> result = Sinks.one();
+        result.tryEmitValue(Try.success(dataSet("Sales by region")));
+
+        cache.getOrGenerate("Sales by region", "model-a", SOURCES, () -> generate(result)).block();
+        cache.getOrGenerate("Sales by region", "model-b", SOURCES, () -> generate(result)).block();
+
+        assertThat(generations).hasValue(2);
+    }
+
+    @Test
+    void reIngestingChangedSourceContentMissesTheCache() {
+        Sinks.One<Try<ChartDataSet>> result = Sinks.one();
+        result.tryEmitValue(Try.success(dataSet("Sales by region")));
+        ledger.record(new SourceLedgerEntry(SOURCES.get(0), null, null, "hash-1", List.of()));
+
+        cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+        cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+        assertThat(generations).hasValue(1);
+
+        ledger.record(new SourceLedgerEntry(SOURCES.get(0), null, null, "hash-2", List.of()));
+        cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+        assertThat(generations).hasValue(2);
+    }
+
+    @Test
+    void anUnreadableLedgerBypassesTheCache() {
+        Sinks.One<Try<ChartDataSet>> result = Sinks.one();
+        result.tryEmitValue(Try.success(dataSet("Sales by region")));
+        ledger.failing = true;
+
+        cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+        Try<ChartDataSet> again = cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(result)).block();
+
+        assertThat(again.isSuccess()).isTrue();
+        assertThat(generations).hasValue(2);
+    }
+
+    @Test
+    void aFailedGenerationIsNotCached() {
+        Sinks.One<Try<ChartDataSet>> failed = Sinks.one();
+        failed.tryEmitValue(Try.failure(new IllegalStateException("model overloaded")));
+        Sinks.One<Try<ChartDataSet>> succeeded = Sinks.one();
+        succeeded.tryEmitValue(Try.success(dataSet("Sales by region")));
+
+        assertThat(cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(failed)).block().isFailure()).isTrue();
+        assertThat(cache.getOrGenerate("Sales by region", "model", SOURCES, () -> generate(succeeded)).block().isSuccess()).isTrue();
+        assertThat(generations).hasValue(2);
+    }
+}
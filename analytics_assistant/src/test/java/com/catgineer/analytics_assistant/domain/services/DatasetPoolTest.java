@@ -0,0 +1,308 @@
+package com.catgineer.analytics_assistant.domain.services;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import com.catgineer.analytics_assistant.domain.model.DatasetSlot;
+import com.catgineer.analytics_assistant.domain.model.TableLoad;
+import com.catgineer.analytics_assistant.infrastructure.ports.VisualisationProvider;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetPoolTest {
+
+    private static final String BASE = "chart_data";
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    // Registers datasets 100, 101, ... and records every call; answers synchronously.
+    private static final class RecordingProvider implements VisualisationProvider {
+        private final List<String> registered = new CopyOnWriteArrayList<>();
+        private final List<String> dropped = new CopyOnWriteArrayList<>();
+        private final AtomicInteger nextDatasetId = new AtomicInteger(100);
+        private Mono<Try<List<String>>> poolTables = Mono.just(Try.success(List.of()));
+
+        @Override
+        public Mono<Try<Boolean>> overwritePhysicalTable(String tableName, List<ColumnDefinition> schema, List<ColumnarTable.RowView> rows) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> overwritePhysicalTables(List<TableLoad> loads) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Boolean>> refreshDataset(Integer datasetId) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Integer>> createChart(Integer datasetId, String chartName, String vizType, String paramsJson) {
+            return Mono.just(Try.failure(new UnsupportedOperationException()));
+        }
+
+        @Override
+        public Mono<Try<Integer>> registerDataset(String tableName) {
+            return Mono.fromSupplier(() -> {
+                registered.add(tableName);
+                return Try.success(nextDatasetId.getAndIncrement());
+            });
+        }
+
+        @Override
+        public Mono<Try<Boolean>> dropDataset(String tableName, Integer datasetId) {
+            return Mono.fromSupplier(() -> {
+                dropped.add(tableName + ":" + datasetId);
+                return Try.success(true);
+            });
+        }
+
+        @Override
+        public Mono<Try<List<String>>> listPoolTables(String baseTableName) {
+            return poolTables;
+        }
+    }
+
+    private final RecordingProvider provider = new RecordingProvider();
+    private final List<DatasetPool> pools = new ArrayList<>();
+
+    @AfterEach
+    void closePools() {
+        pools.forEach(DatasetPool::close);
+    }
+
+    private DatasetPool pool(int maxSlots, int minFree, int maxFree, Duration idleTimeout) {
+        DatasetPool pool = new DatasetPool(provider, BASE, 1, maxSlots, minFree, maxFree, idleTimeout, NEVER);
+        pools.add(pool);
+        return pool;
+    }
+
+    // Completes the work at once and returns the slot it ran on.
+    private static DatasetSlot lease(DatasetPool pool, String session) {
+        List<DatasetSlot> leased = new ArrayList<>();
+        Try<Integer> result = pool.<Integer>withSlot(session, slot -> {
+            leased.add(slot);
+            return Mono.just(Try.success(slot.datasetId()));
+        }).block();
+        assertThat(result.isSuccess()).as("lease for %s", session).isTrue();
+        return leased.get(0);
+    }
+
+    // Keeps the slot busy until the returned sink is completed.
+    private static Sinks.One<Try<Integer>> hold(DatasetPool pool, String session, List<DatasetSlot> leased) {
+        Sinks.One<Try<Integer>> work = Sinks.one();
+        pool.<Integer>withSlot(session, slot -> {
+            leased.add(slot);
+            return work.asMono();
+        }).subscribe();
+        return work;
+    }
+
+    @Test
+    void aSessionKeepsItsSlotBetweenRequests() {
+        DatasetPool pool = pool(4, 0, 4, NEVER);
+
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE, 1));
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE, 1));
+        assertThat(provider.registered).isEmpty();
+    }
+
+    @Test
+    void aBusySessionGetsAnotherSlot() {
+        DatasetPool pool = pool(4, 0, 4, NEVER);
+        List<DatasetSlot> leased = new ArrayList<>();
+        hold(pool, "s1", leased);
+        hold(pool, "s1", leased);
+
+        assertThat(leased).containsExactly(new DatasetSlot(BASE, 1), new DatasetSlot(BASE + "_1", 100));
+        assertThat(provider.registered).containsExactly(BASE + "_1");
+    }
+
+    @Test
+    void anotherSessionGetsANewSlotWhileThereIsRoom() {
+        DatasetPool pool = pool(4, 0, 4, NEVER);
+        lease(pool, "s1");
+
+        assertThat(lease(pool, "s2")).isEqualTo(new DatasetSlot(BASE + "_1", 100));
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE, 1));
+    }
+
+    @Test
+    void theLeastRecentlyUsedExpiredLeaseIsTakenOverWhenThePoolIsFull() {
+        DatasetPool pool = pool(2, 0, 2, Duration.ZERO);
+        lease(pool, "s1");
+        lease(pool, "s2");
+        lease(pool, "s2");
+
+        assertThat(lease(pool, "s3")).isEqualTo(new DatasetSlot(BASE, 1));
+        // s1 lost its slot to s3, so it takes over s2's, now the least recently used.
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE + "_1", 100));
+    }
+
+    @Test
+    void anUnexpiredLeaseIsNeverTakenOver() {
+        DatasetPool pool = pool(2, 0, 2, NEVER);
+        lease(pool, "s1");
+        lease(pool, "s2");
+
+        Try<Integer> third = pool.<Integer>withSlot("s3", slot -> Mono.just(Try.success(1))).block();
+        assertThat(third.isFailure()).isTrue();
+        assertThat(third.getCause()).hasMessageStartingWith("All 2 dataset slots are leased");
+
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE, 1));
+        assertThat(lease(pool, "s2")).isEqualTo(new DatasetSlot(BASE + "_1", 100));
+    }
+
+    @Test
+    void failsWhenEverySlotIsBusy() {
+        DatasetPool pool = pool(2, 0, 2, Duration.ZERO);
+        List<DatasetSlot> leased = new ArrayList<>();
+        Sinks.One<Try<Integer>> first = hold(pool, "s1", leased);
+        hold(pool, "s2", leased);
+
+        Try<Integer> third = pool.<Integer>withSlot("s3", slot -> Mono.just(Try.success(1))).block();
+        assertThat(third.isFailure()).isTrue();
+        assertThat(third.getCause()).hasMessage("All 2 dataset slots are busy");
+
+        first.tryEmitValue(Try.success(1));
+        assertThat(lease(pool, "s3")).isEqualTo(new DatasetSlot(BASE, 1));
+    }
+
+    @Test
+    void aFailedWorkResultReRegistersTheSlot() {
+        DatasetPool pool = pool(4, 0, 4, NEVER);
+        pool.<Integer>withSlot("s1", slot -> Mono.just(Try.failure(new IllegalStateException("dataset gone")))).block();
+
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE, 100));
+        assertThat(provider.registered).containsExactly(BASE);
+    }
+
+    @Test
+    void aLeaseLastsUntilTheWorkTerminatesAndEndsOnlyOnce() {
+        DatasetPool pool = pool(1, 0, 1, NEVER);
+        List<DatasetSlot> leased = new ArrayList<>();
+
+        // The next request of the session arrives while the first result is handed on, before the work has terminated.
+        pool.<Integer>withSlot("s1", slot -> Mono.just(Try.success(1)))
+                .doOnNext(result -> hold(pool, "s1", leased))
+                .block();
+        assertThat(leased).isEmpty();
+
+        // Once the first lease has ended, its late release must not free the next holder's lease.
+        hold(pool, "s1", leased);
+        Try<Integer> concurrent = pool.<Integer>withSlot("s1", slot -> Mono.just(Try.success(1))).block();
+        assertThat(leased).containsExactly(new DatasetSlot(BASE, 1));
+        assertThat(concurrent.isFailure()).isTrue();
+    }
+
+    @Test
+    void batchLeasesAreAllOrNothing() {
+        DatasetPool pool = pool(3, 0, 3, Duration.ZERO);
+        List<DatasetSlot> leased = new ArrayList<>();
+        Sinks.One<Try<Integer>> held = hold(pool, "s1", leased);
+
+        List<Try<List<DatasetSlot>>> batch = pool.withSlots("batch", 3, lease -> Flux.just(lease)).collectList().block();
+        assertThat(batch).singleElement().satisfies(lease -> assertThat(lease.isFailure()).isTrue());
+
+        // The failed batch reserved and registered nothing, so the free room is still there for others.
+        assertThat(provider.registered).isEmpty();
+        assertThat(lease(pool, "s2")).isEqualTo(new DatasetSlot(BASE + "_1", 100));
+
+        held.tryEmitValue(Try.success(1));
+        List<Try<List<DatasetSlot>>> retry = pool.withSlots("batch", 3, lease -> Flux.just(lease)).collectList().block();
+        assertThat(retry).singleElement().satisfies(lease -> assertThat(lease.get()).hasSize(3));
+    }
+
+    @Test
+    void aBatchNeverTakesOverUnexpiredLeases() {
+        DatasetPool pool = pool(2, 0, 2, NEVER);
+        lease(pool, "s1");
+
+        List<Try<List<DatasetSlot>>> batch = pool.withSlots("batch", 2, lease -> Flux.just(lease)).collectList().block();
+        assertThat(batch).singleElement().satisfies(lease -> assertThat(lease.getCause())
+                .hasMessage("Not enough of the 2 dataset slots are free for 2 charts"));
+
+        assertThat(lease(pool, "s1")).isEqualTo(new DatasetSlot(BASE, 1));
+    }
+
+    @Test
+    void adoptsSlotTablesOfAnEarlierRunAndNumbersNewSlotsPastThem() {
+        provider.poolTables = Mono.just(Try.success(List.of(BASE + "_3", BASE + "_7")));
+        DatasetPool pool = pool(5, 0, 5, NEVER);
+        pool.start();
+
+        List<DatasetSlot> leased = new ArrayList<>();
+        for (String session : List.of("s1", "s2", "s3", "s4")) {
+            hold(pool, session, leased);
+        }
+
+        assertThat(leased).extracting(DatasetSlot::tableName)
+                .containsExactly(BASE, BASE + "_3", BASE + "_7", BASE + "_8");
+        assertThat(provider.registered).containsExactly(BASE + "_3", BASE + "_7", BASE + "_8");
+    }
+
+    @Test
+    void leasesWaitForTheAdoptionLookup() {
+        Sinks.One<Try<List<String>>> lookup = Sinks.one();
+        provider.poolTables = lookup.asMono();
+        DatasetPool pool = pool(4, 0, 4, NEVER);
+        pool.start();
+
+        List<DatasetSlot> leased = new ArrayList<>();
+        hold(pool, "s1", leased);
+        assertThat(leased).isEmpty();
+
+        lookup.tryEmitValue(Try.failure(new IllegalStateException("postgres down")));
+        assertThat(leased).containsExactly(new DatasetSlot(BASE, 1));
+    }
+
+    @Test
+    void theJanitorEndsIdleLeasesAndDropsSurplusSlots() {
+        DatasetPool pool = pool(4, 0, 0, Duration.ZERO);
+        lease(pool, "s1");
+        lease(pool, "s2");
+        hold(pool, "s3", new ArrayList<>());
+
+        pool.runJanitorPass().block();
+
+        // Both idle leases ended; the base slot is never dropped and the busy slot is left alone.
+        assertThat(provider.dropped).containsExactly(BASE + "_1:100");
+        assertThat(lease(pool, "s4")).isEqualTo(new DatasetSlot(BASE, 1));
+    }
+
+    @Test
+    void theJanitorDropsFreeAdoptedSlotsWithoutADatasetId() {
+        provider.poolTables = Mono.just(Try.success(List.of(BASE + "_2")));
+        DatasetPool pool = pool(4, 0, 0, Duration.ZERO);
+        pool.start();
+
+        pool.runJanitorPass().block();
+
+        assertThat(provider.dropped).containsExactly(BASE + "_2:null");
+    }
+
+    @Test
+    void theJanitorPreRegistersUpToMinFree() {
+        DatasetPool pool = pool(4, 2, 4, NEVER);
+
+        pool.runJanitorPass().block();
+        assertThat(provider.registered).containsExactly(BASE + "_1");
+
+        List<DatasetSlot> leased = new ArrayList<>();
+        hold(pool, "s1", leased);
+        hold(pool, "s2", leased);
+        assertThat(leased).containsExactly(new DatasetSlot(BASE, 1), new DatasetSlot(BASE + "_1", 100));
+        assertThat(provider.registered).containsExactly(BASE + "_1");
+    }
+}
@@ -0,0 +1,75 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.ColumnDefinition;
+import com.catgineer.analytics_assistant.domain.model.ColumnType;
+import com.catgineer.analytics_assistant.domain.model.ColumnarTable;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvColumnCollectorTest {
+
+    private static ColumnarTable collect(String csv) {
+        CsvColumnCollector collector = new CsvColumnCollector();
+        CsvTokenizer tokenizer = new CsvTokenizer(collector);
+        tokenizer.feed(csv);
+        tokenizer.finish();
+        return collector.toTable();
+    }
+
+    @Test
+    void skipsRecordsWithFewerThanTwoFields() {
+        ColumnarTable table = collect("Here is your data:\n\nregion,count\nnorth,1\nThat's all.\nsouth,2\n");
+
+        assertThat(table.schema()).extracting(ColumnDefinition::name).containsExactly("region", "count");
+        assertThat(table.rowCount()).isEqualTo(2);
+        assertThat(table.row(1).text(0)).isEqualTo("south");
+    }
+
+    @Test
+    void sanitizesHeaders() {
+        ColumnarTable table = collect("Report Date, Commit Count\n2026-01-01,3\n");
+
+        assertThat(table.schema()).extracting(ColumnDefinition::name).containsExactly("report_date", "commit_count");
+    }
+
+    @Test
+    void infersColumnTypesAcrossRows() {
+        ColumnarTable table = collect("""
+                day,at,amount,merged,label,mixed
+                2026-01-01,2026-01-01 10:00:00,1.5,true,a,1
+                2026-01-02,2026-01-02,-2,FALSE,b,x
+                """);
+
+        assertThat(table.schema()).extracting(ColumnDefinition::type).containsExactly(
+                ColumnType.DATE, ColumnType.TIMESTAMP, ColumnType.NUMERIC, ColumnType.BOOLEAN, ColumnType.TEXT, ColumnType.TEXT);
+    }
+
+    @Test
+    void blankCellsDoNotWidenAndBlankColumnsAreText() {
+        ColumnarTable table = collect("n,empty\n1,\n,\n2,\n");
+
+        assertThat(table.schema()).extracting(ColumnDefinition::type).containsExactly(ColumnType.NUMERIC, ColumnType.TEXT);
+        assertThat(table.row(1).isNull(0)).isTrue();
+    }
+
+    @Test
+    void padsShortRecordsAndDropsExtraFields() {
+        ColumnarTable table = collect("a,b,c\n1,2\n3,4,5,6\n");
+
+        assertThat(table.rowCount()).isEqualTo(2);
+        assertThat(table.row(0).isNull(2)).isTrue();
+        assertThat(table.row(1).text(2)).isEqualTo("5");
+    }
+
+    @Test
+    void withoutAHeaderTheTableIsEmpty() {
+        CsvColumnCollector collector = new CsvColumnCollector();
+        CsvTokenizer tokenizer = new CsvTokenizer(collector);
+        tokenizer.feed("no data here\n```\n");
+        tokenizer.finish();
+
+        assertThat(collector.hasHeader()).isFalse();
+        assertThat(collector.toTable().isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,120 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvTokenizerTest {
+
+    private static List<List<String>> tokenize(String... slices) {
+        List<List<String>> rows = new ArrayList<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(fields -> rows.add(List.copyOf(fields)));
+        for (String slice : slices) {
+            tokenizer.feed(slice);
+        }
+        tokenizer.finish();
+        return rows;
+    }
+
+    @Test
+    void splitsRecordsAndTrimsUnquotedFields() {
+        assertThat(tokenize("a, b ,c\n 1,2 , 3\n"))
+                .containsExactly(List.of("a", "b", "c"), List.of("1", "2", "3"));
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertThat(tokenize("a,,c\nx,y,\n"))
+                .containsExactly(List.of("a", "", "c"), List.of("x", "y", ""));
+    }
+
+    @Test
+    void keepsCommasAndWhitespaceInsideQuotes() {
+        assertThat(tokenize("region,note\n\"central, inner\",\"  padded  \"\n"))
+                .containsExactly(List.of("region", "note"), List.of("central, inner", "  padded  "));
+    }
+
+    @Test
+    void unescapesDoubledQuotes() {
+        assertThat(tokenize("quote,n\n\"she said \"\"hi\"\"\",1\n"))
+                .containsExactly(List.of("quote", "n"), List.of("she said \"hi\"", "1"));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotes() {
+        assertThat(tokenize("a,b\n\"line 1\nline 2\",x\n"))
+                .containsExactly(List.of("a", "b"), List.of("line 1\nline 2", "x"));
+    }
+
+    @Test
+    void keepsQuotesInsideUnquotedFields() {
+        assertThat(tokenize("a,b\n5\" screen,x\n"))
+                .containsExactly(List.of("a", "b"), List.of("5\" screen", "x"));
+    }
+
+    @Test
+    void skipsFenceLinesBlankLinesAndCarriageReturns() {
+        assertThat(tokenize("```csv\r\na,b\r\n\r\n1,2\r\n```\r\n"))
+                .containsExactly(List.of("a", "b"), List.of("1", "2"));
+    }
+
+    @Test
+    void doesNotSkipBackticksInsideARecord() {
+        assertThat(tokenize("a,`b`\n"))
+                .containsExactly(List.of("a", "`b`"));
+    }
+
+    @Test
+    void flushesAnUnterminatedTrailingRecordOnFinish() {
+        List<List<String>> rows = new ArrayList<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(fields -> rows.add(List.copyOf(fields)));
+
+        tokenizer.feed("a,b\n1,2");
+        assertThat(rows).containsExactly(List.of("a", "b"));
+
+        tokenizer.finish();
+        assertThat(rows).containsExactly(List.of("a", "b"), List.of("1", "2"));
+    }
+
+    @Test
+    void flushesAnUnterminatedQuotedField() {
+        assertThat(tokenize("a,\"open"))
+                .containsExactly(List.of("a", "open"));
+    }
+
+    @Test
+    void emitsRecordsWithoutADelimiterAsSingleFields() {
+        assertThat(tokenize("Here is your data\na,b\n"))
+                .containsExactly(List.of("Here is your data"), List.of("a", "b"));
+    }
+
+    @Test
+    void producesTheSameRecordsForAnySlicing() {
+        String csv = "```csv\nregion,note\n\"central, \"\"inner\"\"\",x\n\"multi\nline\",y\nlast,z";
+        List<List<String>> whole = tokenize(csv);
+
+        String[] characters = csv.split("");
+        assertThat(tokenize(characters)).isEqualTo(whole);
+        assertThat(tokenize(csv.substring(0, 17), csv.substring(17, 30), csv.substring(30))).isEqualTo(whole);
+        assertThat(whole).containsExactly(
+                List.of("region", "note"),
+                List.of("central, \"inner\"", "x"),
+                List.of("multi\nline", "y"),
+                List.of("last", "z"));
+    }
+
+    @Test
+    void feedsOnlyTheGivenRange() {
+        List<List<String>> rows = new ArrayList<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(fields -> rows.add(List.copyOf(fields)));
+        String response = "intro\n```\na,b\n```\noutro";
+
+        tokenizer.feed(response, response.indexOf("a,b"), response.lastIndexOf("```"));
+        tokenizer.finish();
+
+        assertThat(rows).containsExactly(List.of("a", "b"));
+    }
+}
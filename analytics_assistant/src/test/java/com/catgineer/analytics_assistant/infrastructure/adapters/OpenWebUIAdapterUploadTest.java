@@ -0,0 +1,166 @@
+package com.catgineer.analytics_assistant.infrastructure.adapters;
+
+import com.catgineer.analytics_assistant.domain.model.SourceBody;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The parallel chunk upload to the embedding bridge, against an in-memory bridge that answers per request.
+ */
+class OpenWebUIAdapterUploadTest {
+
+    // One chunk per line keeps chunk indexes predictable.
+    private static final Chunker LINES = new Chunker() {
+        @Override
+        public Stream<Span> split(CharSequence text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<String> split(Reader reader) {
+            return new BufferedReader(reader).lines();
+        }
+    };
+
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    // Status to answer for a request ("METHOD /path") on its n-th attempt.
+    private BiFunction<String, Integer, HttpStatus> bridgeStatus = (request, attempt) -> HttpStatus.OK;
+
+    private ExchangeFunction bridge() {
+        return request -> Mono.defer(() -> {
+            String call = request.method().name() + " " + request.url().getPath();
+            requests.add(call);
+            int attempt = attempts.computeIfAbsent(call, key -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            HttpStatus status = bridgeStatus.apply(call, attempt);
+            // The request leaves the window before its response is handed on, which may admit the next one.
+            return Mono.delay(Duration.ofMillis(5))
+                    .doOnNext(tick -> inFlight.decrementAndGet())
+                    .thenReturn(ClientResponse.create(status).build());
+        });
+    }
+
+    private OpenWebUIAdapter adapter(int embedMaxInFlight, int embedMaxRetries) {
+        return new OpenWebUIAdapter(
+                RestClient.builder(),
+                WebClient.builder(),
+                WebClient.builder().exchangeFunction(bridge()),
+                "http://openwebui.test",
+                "1",
+                "chart_data",
+                "test-key",
+                "http://bridge.test",
+                LINES,
+                embedMaxInFlight,
+                embedMaxRetries,
+                Duration.ofMillis(1));
+    }
+
+    private static SourceBody lines(int count) {
+        return new SourceBody.InMemory(IntStream.rangeClosed(1, count)
+                .mapToObj(i -> "line " + i)
+                .collect(Collectors.joining("\n")));
+    }
+
+    private List<String> posts() {
+        return requests.stream().filter(call -> call.startsWith("POST ")).toList();
+    }
+
+    @Test
+    void uploadsEveryChunkWithinTheInFlightWindow() {
+        Try<Boolean> result = adapter(3, 0).embedData("a\nb\nc\nd\ne\nf\ng\nh\ni\nj\nk\nl").block();
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(posts()).hasSize(12).allMatch(call -> call.matches("POST /embed_\\w{8}_\\d+_of_12\\.txt"));
+        assertThat(posts().stream().map(call -> call.replaceAll(".*_(\\d+)_of_.*", "$1")).map(Integer::parseInt))
+                .containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(1, 12).boxed().toList());
+        assertThat(maxInFlight).hasValue(3);
+    }
+
+    @Test
+    void retriesATransientFailureOfOneChunkOnly() {
+        bridgeStatus = (call, attempt) -> call.endsWith("_2_of_5.txt") && attempt <= 2
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.OK;
+
+        Try<List<String>> result = adapter(2, 3).embedChangedChunks("https://example.test/a", lines(5), List.of()).block();
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.get()).hasSize(5);
+        assertThat(posts()).hasSize(7);
+        assertThat(attempts).allSatisfy((call, count) ->
+                assertThat(count.get()).isEqualTo(call.endsWith("_2_of_5.txt") ? 3 : 1));
+    }
+
+    @Test
+    void failsOnceAChunkExhaustsItsRetries() {
+        bridgeStatus = (call, attempt) -> call.endsWith("_2_of_5.txt") ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.OK;
+
+        Try<List<String>> result = adapter(1, 2).embedChangedChunks("https://example.test/a", lines(5), List.of()).block();
+
+        assertThat(result.isFailure()).isTrue();
+        assertThat(attempts.entrySet()).filteredOn(entry -> entry.getKey().endsWith("_2_of_5.txt"))
+                .singleElement()
+                .satisfies(entry -> assertThat(entry.getValue().get()).isEqualTo(3));
+        // With one chunk in flight, the failure cancels the chunks after it.
+        assertThat(posts()).noneMatch(call -> call.endsWith("_5_of_5.txt"));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        bridgeStatus = (call, attempt) -> call.endsWith("_2_of_5.txt") ? HttpStatus.BAD_REQUEST : HttpStatus.OK;
+
+        Try<List<String>> result = adapter(1, 3).embedChangedChunks("https://example.test/a", lines(5), List.of()).block();
+
+        assertThat(result.isFailure()).isTrue();
+        assertThat(posts()).filteredOn(call -> call.endsWith("_2_of_5.txt")).hasSize(1);
+    }
+
+    @Test
+    void uploadsOnlyChangedChunksAndRetractsSupersededSets() {
+        bridgeStatus = (call, attempt) -> call.startsWith("DELETE ") ? HttpStatus.NOT_FOUND : HttpStatus.OK;
+        OpenWebUIAdapter adapter = adapter(2, 0);
+        String source = "https://example.test/a";
+
+        List<String> first = adapter.embedChangedChunks(source, lines(3), List.of()).block().get();
+        assertThat(posts()).hasSize(3);
+
+        requests.clear();
+        List<String> unchanged = adapter.embedChangedChunks(source, lines(3), first).block().get();
+        assertThat(unchanged).isEqualTo(first);
+        assertThat(requests).isEmpty();
+
+        requests.clear();
+        Try<List<String>> grown = adapter.embedChangedChunks(source, lines(4), first).block();
+        assertThat(grown.isSuccess()).isTrue();
+        assertThat(posts()).hasSize(4).allMatch(call -> call.endsWith("_of_4.txt"));
+        assertThat(requests).filteredOn(call -> call.startsWith("DELETE "))
+                .hasSize(3)
+                .allMatch(call -> call.endsWith("_of_3.txt"));
+    }
+}